@@ -0,0 +1,48 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import android.content.Context;
+import android.os.Looper;
+import android.support.v7.appcompat.R;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * The shared environment of benchmarks, they run on the JMH worker thread within the Robolectric sandbox.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+final class BenchmarkEnvironment {
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Make the current worker thread act as the main thread, the views can be created on it.
+     */
+    static void prepareThread() {
+        RuntimeEnvironment.setMainThread(Thread.currentThread());
+        if (null == Looper.myLooper()) {
+            Looper.prepare();
+        }
+    }
+
+    /**
+     * Get the app compat themed context which the toolbar requires.
+     */
+    static Context newContext() {
+        return new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light_NoActionBar);
+    }
+
+    /**
+     * Measure the toolbar as it placed at the top of a vertical container.
+     */
+    static void measure(View view, int width) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+    }
+
+}
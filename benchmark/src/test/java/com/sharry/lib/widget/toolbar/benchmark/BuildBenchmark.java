@@ -0,0 +1,67 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.widget.FrameLayout;
+
+import com.sharry.lib.widget.toolbar.ImageViewOptions;
+import com.sharry.lib.widget.toolbar.SToolbar;
+import com.sharry.lib.widget.toolbar.TextViewOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The building of toolbar with the menu set of a typical page: back icon, title, left text,
+ * right text and right image.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+@State(Scope.Thread)
+public class BuildBenchmark {
+
+    private FrameLayout mContentView;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.prepareThread();
+        Context context = BenchmarkEnvironment.newContext();
+        mContentView = new FrameLayout(context);
+    }
+
+    @Benchmark
+    public SToolbar build() {
+        return SToolbar.Builder(mContentView)
+                .setBackgroundColor(Color.WHITE)
+                .setSubItemInterval(10)
+                .setTitleText("Title")
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .addLeftMenuText(TextViewOptions.Builder()
+                        .setText("left")
+                        .setTextColor(Color.BLACK)
+                        .build())
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("right")
+                        .setTextColor(Color.BLACK)
+                        .build())
+                .addRightMenuImage(ImageViewOptions.Builder()
+                        .setDrawableResId(android.R.drawable.ic_menu_search)
+                        .build())
+                .build();
+    }
+
+    /**
+     * The views of recycled toolbar are reused by the next building.
+     */
+    @Benchmark
+    public SToolbar buildAndRecycle() {
+        SToolbar toolbar = build();
+        toolbar.recycle();
+        return toolbar;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import com.sharry.lib.widget.toolbar.SToolbar;
+import com.sharry.toolbar.R;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.robolectric.Robolectric;
+
+/**
+ * The construction of toolbar, with and without the attributes inflated from XML.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+@State(Scope.Thread)
+public class ConstructBenchmark {
+
+    private Context mContext;
+    private AttributeSet mAttrs;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.prepareThread();
+        mContext = BenchmarkEnvironment.newContext();
+        mAttrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.titleText, "Title")
+                .addAttribute(R.attr.titleTextSize, "18sp")
+                .addAttribute(R.attr.dividingLineHeight, "1dp")
+                .addAttribute(R.attr.backIcon, "@android:drawable/ic_menu_revert")
+                .addAttribute(R.attr.menuRightText, "Done")
+                .build();
+    }
+
+    @Benchmark
+    public SToolbar construct() {
+        return new SToolbar(mContext);
+    }
+
+    @Benchmark
+    public SToolbar constructWithAttrs() {
+        return new SToolbar(mContext, mAttrs);
+    }
+
+}
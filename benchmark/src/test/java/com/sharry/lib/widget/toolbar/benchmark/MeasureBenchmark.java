@@ -0,0 +1,55 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import android.graphics.Color;
+import android.widget.FrameLayout;
+
+import com.sharry.lib.widget.toolbar.ImageViewOptions;
+import com.sharry.lib.widget.toolbar.SToolbar;
+import com.sharry.lib.widget.toolbar.TextViewOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The measure pass of a typical toolbar at the common screen widths in pixels.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+@State(Scope.Thread)
+public class MeasureBenchmark {
+
+    @Param({"720", "1080", "1440"})
+    public int width;
+
+    private SToolbar mToolbar;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.prepareThread();
+        mToolbar = SToolbar.Builder(new FrameLayout(BenchmarkEnvironment.newContext()))
+                .setTitleText("Title")
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("right")
+                        .setTextColor(Color.BLACK)
+                        .build())
+                .addRightMenuImage(ImageViewOptions.Builder()
+                        .setDrawableResId(android.R.drawable.ic_menu_search)
+                        .build())
+                .build();
+    }
+
+    @Benchmark
+    public int onMeasure() {
+        // Skip the measure cache of View.
+        mToolbar.forceLayout();
+        BenchmarkEnvironment.measure(mToolbar, width);
+        return mToolbar.getMeasuredHeight();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.sharry.lib.widget.toolbar.ImageViewOptions;
+import com.sharry.lib.widget.toolbar.TextViewOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The completion of the menu views by options.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+@State(Scope.Thread)
+public class OptionsBenchmark {
+
+    private TextViewOptions mTextOps;
+    private ImageViewOptions mImageOps;
+    private TextView mTextView;
+    private ImageView mImageView;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.prepareThread();
+        Context context = BenchmarkEnvironment.newContext();
+        mTextOps = TextViewOptions.Builder()
+                .setText("right")
+                .setTextSize(14)
+                .setTextColor(Color.BLACK)
+                .setPaddingLeft(16)
+                .setPaddingRight(16)
+                .build();
+        mImageOps = ImageViewOptions.Builder()
+                .setDrawableResId(android.R.drawable.ic_menu_search)
+                .setPaddingLeft(16)
+                .setPaddingRight(16)
+                .build();
+        mTextView = new TextView(context);
+        mImageView = new ImageView(context);
+    }
+
+    @Benchmark
+    public TextView textViewOptionsCompletion() {
+        mTextOps.completion(mTextView);
+        return mTextView;
+    }
+
+    @Benchmark
+    public ImageView imageViewOptionsCompletion() {
+        mImageOps.completion(mImageView);
+        return mImageView;
+    }
+
+}
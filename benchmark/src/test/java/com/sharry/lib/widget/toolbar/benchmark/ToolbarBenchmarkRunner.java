@@ -0,0 +1,50 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The entry of benchmarks, it reports the ops/sec and the allocation rate of every benchmark.
+ * <p>
+ * The benchmarks aren't forked, the forked JVM has no Robolectric sandbox.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class ToolbarBenchmarkRunner {
+
+    @Test
+    public void run() throws RunnerException {
+        assumeTrue(Boolean.getBoolean("toolbar.benchmark"));
+        Options options = new OptionsBuilder()
+                .include(getClass().getPackage().getName() + ".*Benchmark")
+                .forks(0)
+                .threads(1)
+                .warmupIterations(5)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
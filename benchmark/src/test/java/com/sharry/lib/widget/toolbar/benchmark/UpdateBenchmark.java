@@ -0,0 +1,60 @@
+package com.sharry.lib.widget.toolbar.benchmark;
+
+import android.widget.FrameLayout;
+
+import com.sharry.lib.widget.toolbar.SToolbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The title text updating loops, such as count down or progress.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 11:30
+ */
+@State(Scope.Thread)
+public class UpdateBenchmark {
+
+    private static final String[] TITLES = {"00:03", "00:02", "00:01", "00:00"};
+
+    private SToolbar mToolbar;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.prepareThread();
+        mToolbar = SToolbar.Builder(new FrameLayout(BenchmarkEnvironment.newContext()))
+                .setTitleText(TITLES[0])
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .build();
+        BenchmarkEnvironment.measure(mToolbar, 1080);
+    }
+
+    @Benchmark
+    public SToolbar setTitleText() {
+        mToolbar.setTitleText(nextTitle());
+        return mToolbar;
+    }
+
+    @Benchmark
+    public SToolbar updateTitleText() {
+        mToolbar.updateTitleText(nextTitle());
+        return mToolbar;
+    }
+
+    @Benchmark
+    public SToolbar updateTitleTextUnchanged() {
+        mToolbar.updateTitleText(TITLES[0]);
+        return mToolbar;
+    }
+
+    private String nextTitle() {
+        mIndex = (mIndex + 1) % TITLES.length;
+        return TITLES[mIndex];
+    }
+
+}
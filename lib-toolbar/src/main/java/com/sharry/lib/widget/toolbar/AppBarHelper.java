@@ -9,8 +9,13 @@ import android.util.TypedValue;
 import android.view.View;
 import android.view.Window;
 
+import com.sharry.toolbar.R;
+
 /**
  * 变更 App bar 的风格的帮助类
+ * <p>
+ * 每个 Window 共享一个实例 (保存在 DecorView 的 tag 中, 随 Window 释放), 记录当前的 flags 与 bar 的颜色,
+ * setXXX 只修改目标状态, {@link #apply()} 时仅写入与 Window 当前状态不同的部分.
  *
  * @author Sharry <a href="SharryChooChn@Gmail.com">Contact me.</a>
  * @version 1.0
@@ -19,163 +24,193 @@ import android.view.Window;
 class AppBarHelper {
 
     /**
-     * Get AppBarHelper instance with this factory method.
+     * Get the AppBarHelper instance associated with the window of context.
+     * <p>
+     * The instance is kept by the decor view of window, so it is released with the window.
      */
     static AppBarHelper with(Context context) {
-        return new AppBarHelper(context);
+        Activity activity = Utils.findActivity(context);
+        if (null == activity) {
+            throw new IllegalArgumentException("Please ensure context instance of Activity.");
+        }
+        Window window = activity.getWindow();
+        View decorView = window.getDecorView();
+        AppBarHelper helper = (AppBarHelper) decorView.getTag(R.id.lib_toolbar_tag_app_bar);
+        if (null == helper) {
+            helper = new AppBarHelper(activity, window);
+            decorView.setTag(R.id.lib_toolbar_tag_app_bar, helper);
+        }
+        return helper;
     }
 
-    private static final int DEFAULT_OPTIONS = 0;
-    private int mOptions = DEFAULT_OPTIONS;
-    private Activity mActivity;
-    private Window mWindow;
+    private static final int FLAGS_ALL_BARS_HIDE = View.SYSTEM_UI_FLAG_LAYOUT_STABLE
+            | View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION
+            | View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+            | View.SYSTEM_UI_FLAG_HIDE_NAVIGATION
+            | View.SYSTEM_UI_FLAG_FULLSCREEN
+            | View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY;
 
-    private AppBarHelper(Context context) {
-        if (context instanceof Activity) {
-            mActivity = (Activity) context;
-            mWindow = mActivity.getWindow();
-        } else {
-            throw new IllegalArgumentException("Please ensure context instance of Activity.");
-        }
+    private final Window mWindow;
+    /**
+     * The colorPrimaryDark of activity theme, resolved once.
+     */
+    private final int mPrimaryDarkColor;
+
+    /*
+       The target state.
+     */
+    private int mStatusBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+    private int mNavigationBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+    private boolean mAllBarsHide = false;
+    private boolean mFlagsChanged = false;
+    private int mStatusBarColor;
+    private int mNavigationBarColor;
+    private boolean mStatusBarColorChanged = false;
+    private boolean mNavigationBarColorChanged = false;
+
+    private AppBarHelper(Activity activity, Window window) {
+        mWindow = window;
+        TypedValue typedValue = new TypedValue();
+        activity.getTheme().resolveAttribute(android.R.attr.colorPrimaryDark, typedValue, true);
+        mPrimaryDarkColor = typedValue.data;
     }
 
     /**
      * 设置StatusBar的风格
      */
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     AppBarHelper setStatusBarStyle(Style style) {
-        if (!Utils.isLollipop()) {
-            return this;
-        }
+        mAllBarsHide = false;
+        mFlagsChanged = true;
         switch (style) {
             // 设置状态栏为全透明
-            case TRANSPARENT: {
-                int option = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+            case TRANSPARENT:
+                mStatusBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
                         | View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
-                mOptions = mOptions | option;
-                mWindow.setStatusBarColor(Color.TRANSPARENT);
+                mStatusBarColor = Color.TRANSPARENT;
+                mStatusBarColorChanged = true;
                 break;
-            }
             // 设置状态栏为半透明
-            case TRANSLUCENCE: {
-                int option = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+            case TRANSLUCENCE:
+                mStatusBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
                         | View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
-                mOptions = mOptions | option;
-                mWindow.setStatusBarColor(Utils.alphaColor(Color.BLACK, 0.3f));
+                mStatusBarColor = Utils.alphaColor(Color.BLACK, 0.3f);
+                mStatusBarColorChanged = true;
                 break;
-            }
             // 隐藏状态栏
-            case HIDE: {
-                int option = View.SYSTEM_UI_FLAG_FULLSCREEN;
-                mOptions = mOptions | option;
+            case HIDE:
+                mStatusBarFlags = View.SYSTEM_UI_FLAG_FULLSCREEN;
                 break;
-            }
-            // 清除透明状态栏
-            case DEFAULT: {
-                mOptions = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
-                //获取当前Application主题中的状态栏Color
-                TypedValue typedValue = new TypedValue();
-                mActivity.getTheme().resolveAttribute(android.R.attr.colorPrimaryDark, typedValue, true);
-                int color = typedValue.data;
-                mWindow.setStatusBarColor(color);
-            }
+            // 清除透明状态栏, 使用当前主题中的状态栏 Color
+            case DEFAULT:
             default:
+                mStatusBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+                mStatusBarColor = mPrimaryDarkColor;
+                mStatusBarColorChanged = true;
                 break;
         }
         return this;
     }
 
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     AppBarHelper setStatusBarColor(int color) {
-        if (!Utils.isLollipop()) {
-            return this;
-        }
-        mOptions = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
-        mWindow.setStatusBarColor(color);
+        mAllBarsHide = false;
+        mFlagsChanged = true;
+        mStatusBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+        mStatusBarColor = color;
+        mStatusBarColorChanged = true;
+        return this;
+    }
+
+    /**
+     * 仅修改状态栏颜色, 不影响当前的 flags
+     */
+    AppBarHelper tintStatusBar(int color) {
+        mStatusBarColor = color;
+        mStatusBarColorChanged = true;
         return this;
     }
 
     /**
      * 设置NavigationBar的风格
      */
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     AppBarHelper setNavigationBarStyle(Style style) {
-        if (!Utils.isLollipop()) {
-            return this;
-        }
+        mAllBarsHide = false;
+        mFlagsChanged = true;
         switch (style) {
             // 设置导航栏为全透明
-            case TRANSPARENT: {
-                int option = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+            case TRANSPARENT:
+                mNavigationBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
                         | View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION;
-                mOptions = mOptions | option;
-                mWindow.setNavigationBarColor(Color.TRANSPARENT);
+                mNavigationBarColor = Color.TRANSPARENT;
+                mNavigationBarColorChanged = true;
                 break;
-            }
             // 设置导航栏为半透明
-            case TRANSLUCENCE: {
-                int option = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+            case TRANSLUCENCE:
+                mNavigationBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
                         | View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION;
-                mOptions = mOptions | option;
-                mWindow.setNavigationBarColor(Utils.alphaColor(Color.BLACK, 0.3f));
+                mNavigationBarColor = Utils.alphaColor(Color.BLACK, 0.3f);
+                mNavigationBarColorChanged = true;
                 break;
-            }
             //隐藏导航栏
-            case HIDE: {
-                int option = View.SYSTEM_UI_FLAG_HIDE_NAVIGATION;
-                mOptions = mOptions | option;
+            case HIDE:
+                mNavigationBarFlags = View.SYSTEM_UI_FLAG_HIDE_NAVIGATION;
                 break;
-            }
+            // 使用当前主题中的 color
+            case DEFAULT:
             default:
-            case DEFAULT: {
-                mOptions = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
-                //获取当前Activity主题中的color
-                TypedValue typedValue = new TypedValue();
-                mActivity.getTheme().resolveAttribute(android.R.attr.colorPrimaryDark, typedValue, true);
-                int color = typedValue.data;
-                mWindow.setNavigationBarColor(color);
-            }
-            break;
+                mNavigationBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+                mNavigationBarColor = mPrimaryDarkColor;
+                mNavigationBarColorChanged = true;
+                break;
         }
         return this;
     }
 
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     AppBarHelper setNavigationBarColor(int color) {
-        if (!Utils.isLollipop()) {
-            return this;
-        }
-        mOptions = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
-        mWindow.setNavigationBarColor(color);
+        mAllBarsHide = false;
+        mFlagsChanged = true;
+        mNavigationBarFlags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+        mNavigationBarColor = color;
+        mNavigationBarColorChanged = true;
         return this;
     }
 
     /**
      * 隐藏所有Bar(全屏模式)
      */
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     AppBarHelper setAllBarsHide() {
-        if (!Utils.isLollipop()) {
-            return this;
-        }
-        int option = View.SYSTEM_UI_FLAG_LAYOUT_STABLE
-                | View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION
-                | View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
-                | View.SYSTEM_UI_FLAG_HIDE_NAVIGATION
-                | View.SYSTEM_UI_FLAG_FULLSCREEN
-                | View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY;
-        mOptions = option;
+        mAllBarsHide = true;
+        mFlagsChanged = true;
         return this;
     }
 
+    /**
+     * Write the target state to window, the flags and colors same as the window current state
+     * are skipped, so the window won't relayout if nothing changed.
+     */
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     void apply() {
         if (!Utils.isLollipop()) {
             return;
         }
-        if (mOptions != DEFAULT_OPTIONS) {
+        if (mStatusBarColorChanged) {
+            mStatusBarColorChanged = false;
+            if (mStatusBarColor != mWindow.getStatusBarColor()) {
+                mWindow.setStatusBarColor(mStatusBarColor);
+            }
+        }
+        if (mNavigationBarColorChanged) {
+            mNavigationBarColorChanged = false;
+            if (mNavigationBarColor != mWindow.getNavigationBarColor()) {
+                mWindow.setNavigationBarColor(mNavigationBarColor);
+            }
+        }
+        if (mFlagsChanged) {
+            mFlagsChanged = false;
+            int flags = mAllBarsHide ? FLAGS_ALL_BARS_HIDE : mStatusBarFlags | mNavigationBarFlags;
             View decorView = mWindow.getDecorView();
-            decorView.setSystemUiVisibility(mOptions);
+            if (flags != decorView.getSystemUiVisibility()) {
+                decorView.setSystemUiVisibility(flags);
+            }
         }
     }
 
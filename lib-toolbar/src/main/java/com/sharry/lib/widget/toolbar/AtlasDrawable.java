@@ -0,0 +1,97 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The drawable of a region in the icon atlas, the intrinsic size is the pixel size of the region.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/11/1 21:30
+ */
+final class AtlasDrawable extends Drawable {
+
+    private final State mState;
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
+
+    private AtlasDrawable(State state) {
+        mState = state;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        canvas.drawBitmap(mState.atlas, mState.region, getBounds(), mPaint);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mState.region.width();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mState.region.height();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (mPaint.getAlpha() != alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public ConstantState getConstantState() {
+        return mState;
+    }
+
+    static final class State extends ConstantState {
+
+        final Bitmap atlas;
+        final Rect region;
+
+        State(@NonNull Bitmap atlas, @NonNull Rect region) {
+            this.atlas = atlas;
+            this.region = region;
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable() {
+            return new AtlasDrawable(this);
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable(@Nullable Resources res) {
+            return new AtlasDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return 0;
+        }
+    }
+
+}
@@ -35,7 +35,7 @@ public class Builder {
     /*
        Constants.
      */
-    private static final int INVALIDATE = -1;
+    private static final int INVALIDATE = ToolbarSpec.INVALIDATE;
     private static final int DEFAULT_BACKGROUND_COLOR = Color.WHITE;
     private static final int DEFAULT_DIVIDING_LINE_HEIGHT = 0;
     private static final int DEFAULT_DIVIDING_LINE_COLOR = Color.LTGRAY;
@@ -54,6 +54,7 @@ public class Builder {
     private int mDividingLineHeight = DEFAULT_DIVIDING_LINE_HEIGHT;
     private int mDividingLineColor = DEFAULT_DIVIDING_LINE_COLOR;
     private int mTitleGravity = DEFAULT_TITLE_GRAVITY;
+    private boolean mMenuDrawMode = false;
 
     /*
        View options.
@@ -63,6 +64,10 @@ public class Builder {
     private final List<Entity> mTitleEntities = new ArrayList<>();
     private final List<Entity> mMenuLeftEntities = new ArrayList<>();
     private final List<Entity> mMenuRightEntities = new ArrayList<>();
+    /**
+     * The spec compiled last time, it is dropped when any option changed.
+     */
+    private ToolbarSpec mSpec;
 
     /**
      * 给 Activity 添加 Toolbar
@@ -77,15 +82,15 @@ public class Builder {
     }
 
     /**
-     * 给 View 添加 Toolbar, 确保传入的 View 为 LinearLayout
+     * 给 View 添加 Toolbar, 确保传入的 View 为 ViewGroup
      */
     Builder(View contentView) {
-        if (contentView instanceof LinearLayout) {
+        if (contentView instanceof ViewGroup) {
             mContentParent = (ViewGroup) contentView;
             mContext = contentView.getContext();
         } else {
             throw new IllegalArgumentException("Please ensure contentView instanceof " +
-                    "LinearLayout, now is: " + contentView);
+                    "ViewGroup, now is: " + contentView);
         }
     }
 
@@ -94,6 +99,7 @@ public class Builder {
      */
     public Builder setSubItemInterval(@Dimension(unit = DP) int subItemInterval) {
         mSubItemInterval = subItemInterval;
+        mSpec = null;
         return this;
     }
 
@@ -102,6 +108,7 @@ public class Builder {
      */
     public Builder setMinimumHeight(@Dimension(unit = DP) int minimumHeight) {
         mMinimumHeight = minimumHeight;
+        mSpec = null;
         return this;
     }
 
@@ -110,6 +117,7 @@ public class Builder {
      */
     public Builder setStatusBarStyle(Style statusBarStyle) {
         mStyle = statusBarStyle;
+        mSpec = null;
         return this;
     }
 
@@ -119,6 +127,7 @@ public class Builder {
      */
     public Builder setBackgroundColorRes(@ColorRes int colorResId) {
         mBackgroundColor = ContextCompat.getColor(mContext, colorResId);
+        mSpec = null;
         return this;
     }
 
@@ -127,6 +136,7 @@ public class Builder {
      */
     public Builder setBackgroundColor(@ColorInt int color) {
         mBackgroundColor = color;
+        mSpec = null;
         return this;
     }
 
@@ -136,6 +146,7 @@ public class Builder {
      */
     public Builder setBackgroundDrawableRes(@DrawableRes int drawableResId) {
         mBackgroundDrawableResId = drawableResId;
+        mSpec = null;
         return this;
     }
 
@@ -144,6 +155,7 @@ public class Builder {
      */
     public Builder setDividingLineHeight(@Dimension(unit = DP) int height) {
         this.mDividingLineHeight = height;
+        mSpec = null;
         return this;
     }
 
@@ -152,6 +164,7 @@ public class Builder {
      */
     public Builder setDividingLineColorRes(@ColorRes int dividingLineColorRes) {
         this.mDividingLineColor = ContextCompat.getColor(mContext, dividingLineColorRes);
+        mSpec = null;
         return this;
     }
 
@@ -160,6 +173,18 @@ public class Builder {
      */
     public Builder setDividingLineColor(@ColorInt int dividingLineColor) {
         this.mDividingLineColor = dividingLineColor;
+        mSpec = null;
+        return this;
+    }
+
+    /**
+     * Set the menu text and image items drawn by toolbar directly, instead of creating views.
+     *
+     * @see SToolbar#setMenuDrawMode(boolean)
+     */
+    public Builder setMenuDrawMode(boolean menuDrawMode) {
+        mMenuDrawMode = menuDrawMode;
+        mSpec = null;
         return this;
     }
 
@@ -168,6 +193,7 @@ public class Builder {
      */
     public Builder setTitleGravity(int gravity) {
         mTitleGravity = gravity;
+        mSpec = null;
         return this;
     }
 
@@ -197,6 +223,7 @@ public class Builder {
 
     public Builder setTitleText(@NonNull TextViewOptions ops) {
         mTitleTextOps = ops;
+        mSpec = null;
         return this;
     }
 
@@ -220,6 +247,7 @@ public class Builder {
 
     public Builder setTitleImage(@NonNull ImageViewOptions ops) {
         mTitleImageOps = ops;
+        mSpec = null;
         return this;
     }
 
@@ -232,6 +260,7 @@ public class Builder {
 
     public Builder addTitleView(View view, Options ops) {
         mTitleEntities.add(new Entity(view, ops));
+        mSpec = null;
         return this;
     }
 
@@ -245,7 +274,11 @@ public class Builder {
                         .setListener(new View.OnClickListener() {
                             @Override
                             public void onClick(View v) {
-                                ((Activity) mContext).finish();
+                                // Finish the activity which the toolbar attached, the spec may be shared.
+                                Activity activity = Utils.findActivity(v.getContext());
+                                if (null != activity) {
+                                    activity.finish();
+                                }
                             }
                         })
                         .build()
@@ -269,6 +302,7 @@ public class Builder {
 
     public Builder addLeftMenuView(@Nullable View view, @Nullable Options ops) {
         mMenuLeftEntities.add(new Entity(view, ops));
+        mSpec = null;
         return this;
     }
 
@@ -289,126 +323,88 @@ public class Builder {
 
     public Builder addRightMenuView(@NonNull View view, @NonNull Options ops) {
         mMenuRightEntities.add(new Entity(view, ops));
+        mSpec = null;
         return this;
     }
 
     /**
-     * Instantiation SToolbar.
+     * Compile the options to an immutable spec, the dimensions and colors are resolved here.
+     * <p>
+     * U can keep the spec and apply it to many toolbars, instead of building again.
+     * The spec is compiled once and reused until any option changed or the density changed.
      */
-    public SToolbar build() {
-        final SToolbar toolbar = new SToolbar(mContext);
-        completion(toolbar);
-        return toolbar;
+    public ToolbarSpec buildSpec() {
+        if (null == mSpec || !mSpec.isCompatibleWith(mContext)) {
+            mSpec = compileSpec();
+        }
+        return mSpec;
+    }
+
+    private ToolbarSpec compileSpec() {
+        List<ToolbarSpec.Item> titleItems = new ArrayList<>(mTitleEntities.size());
+        for (Entity entity : mTitleEntities) {
+            titleItems.add(ToolbarSpec.Item.of(entity.view, entity.op));
+        }
+        List<ToolbarSpec.Item> leftMenuItems = new ArrayList<>(mMenuLeftEntities.size());
+        for (Entity entity : mMenuLeftEntities) {
+            leftMenuItems.add(ToolbarSpec.Item.of(entity.view, entity.op));
+        }
+        List<ToolbarSpec.Item> rightMenuItems = new ArrayList<>(mMenuRightEntities.size());
+        for (Entity entity : mMenuRightEntities) {
+            rightMenuItems.add(ToolbarSpec.Item.of(entity.view, entity.op));
+        }
+        return new ToolbarSpec(
+                mContext.getResources().getDisplayMetrics().density,
+                mStyle,
+                INVALIDATE != mMinimumHeight ? Utils.dp2px(mContext, mMinimumHeight) : INVALIDATE,
+                INVALIDATE != mSubItemInterval ? Utils.dp2px(mContext, mSubItemInterval) : INVALIDATE,
+                mBackgroundDrawableResId,
+                mBackgroundColor,
+                Utils.dp2px(mContext, mDividingLineHeight),
+                mDividingLineColor,
+                mTitleGravity,
+                mMenuDrawMode,
+                mTitleTextOps,
+                mTitleImageOps,
+                titleItems,
+                leftMenuItems,
+                rightMenuItems
+        );
     }
 
     /**
-     * Instantiation SToolbar, and then add it to suitable position.
+     * Instantiation SToolbar.
      */
-    public SToolbar apply() {
-        final SToolbar toolbar = build();
-        // Add to container.
-        mContentParent.addView(toolbar, 0);
-        // 等待 View 的 performTraversal 完成
-        toolbar.post(new Runnable() {
-            @Override
-            public void run() {
-                adjustLayout(toolbar);
-            }
-        });
-        return toolbar;
+    public SToolbar build() {
+        long metricsToken = ToolbarMetrics.begin(ToolbarMetrics.EVENT_BUILD);
+        try {
+            return buildSpec().build(mContext);
+        } finally {
+            ToolbarMetrics.end(null, ToolbarMetrics.EVENT_BUILD, metricsToken);
+        }
     }
 
     /**
-     * Inject data to toolbar.
+     * Instantiation SToolbar, and then add it to suitable position.
+     * <p>
+     * The origin content is placed under the toolbar within the first traversal, there is no
+     * additional layout pass after the toolbar laid out.
      */
-    private void completion(SToolbar toolbar) {
-        // 1. Set layout params associated with the toolbar.
-        toolbar.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
-                ViewGroup.LayoutParams.WRAP_CONTENT));
-        // 2. Set arguments.
-        if (INVALIDATE != mMinimumHeight) {
-            toolbar.setMinimumHeight(Utils.dp2px(mContext, mMinimumHeight));
-        }
-        if (INVALIDATE != mSubItemInterval) {
-            toolbar.setSubItemInterval(Utils.dp2px(mContext, mSubItemInterval));
-        }
-        if (Style.DEFAULT != mStyle) {
-            toolbar.setStatusBarStyle(mStyle);
-        }
-        toolbar.setBackgroundColor(mBackgroundColor);
-        if (INVALIDATE != mBackgroundDrawableResId) {
-            toolbar.setBackgroundDrawableRes(mBackgroundDrawableResId);
-        }
-        toolbar.setDividingLineColor(mDividingLineColor);
-        toolbar.setDividingLineHeight(mDividingLineHeight);
-        // 3. Setup title items associated with the toolbar.
-        toolbar.setTitleGravity(mTitleGravity);
-        if (null != mTitleTextOps) {
-            toolbar.setTitleText(mTitleTextOps);
-        }
-        if (null != mTitleImageOps) {
-            toolbar.setTitleImage(mTitleImageOps);
-        }
-        if (Utils.isNotEmpty(mTitleEntities)) {
-            for (Entity titleEntity : mTitleEntities) {
-                toolbar.addTitleView(titleEntity.view, titleEntity.op);
-            }
-        }
-        // 4. Add left menu items associated with the toolbar.
-        if (Utils.isNotEmpty(mMenuLeftEntities)) {
-            for (Entity leftItem : mMenuLeftEntities) {
-                if (null != leftItem.view && null != leftItem.op) {
-                    toolbar.addLeftMenuView(leftItem.view, leftItem.op);
-                } else if (null != leftItem.op) {
-                    if (leftItem.op instanceof TextViewOptions) {
-                        toolbar.addLeftMenuText((TextViewOptions) leftItem.op);
-                    } else if (leftItem.op instanceof ImageViewOptions) {
-                        toolbar.addLeftMenuImage((ImageViewOptions) leftItem.op);
-                    } else {
-                        throw new NullPointerException("U setup ops cannot support auto generate view, " +
-                                " option is :" + leftItem.op);
-                    }
-                } else if (null != leftItem.view) {
-                    toolbar.addLeftMenuView(leftItem.view);
-                } else {
-                    throw new NullPointerException("Please ensure ops or view at least one nonnull");
-                }
-            }
-        }
-        // 5. Add right menu items associated with the toolbar.
-        if (Utils.isNotEmpty(mMenuRightEntities)) {
-            for (Entity rightEntity : mMenuRightEntities) {
-                if (null != rightEntity.view && null != rightEntity.op) {
-                    toolbar.addRightMenuView(rightEntity.view, rightEntity.op);
-                } else if (null != rightEntity.op) {
-                    if (rightEntity.op instanceof TextViewOptions) {
-                        toolbar.addRightMenuText((TextViewOptions) rightEntity.op);
-                    } else if (rightEntity.op instanceof ImageViewOptions) {
-                        toolbar.addRightMenuImage((ImageViewOptions) rightEntity.op);
-                    } else {
-                        throw new NullPointerException("U setup ops cannot support auto generate view, " +
-                                " option is :" + rightEntity.op);
-                    }
-                } else if (null != rightEntity.view) {
-                    toolbar.addRightMenuView(rightEntity.view);
-                } else {
-                    throw new NullPointerException("Please ensure ops or view at least one nonnull");
-                }
-            }
-        }
+    public SToolbar apply() {
+        return attach(build());
     }
 
     /**
-     * Adjust origin content to comfort position.
+     * Add the toolbar to suitable position.
      */
-    private void adjustLayout(SToolbar toolbar) {
-        if (null != mContentParent && !(mContentParent instanceof LinearLayout)) {
-            // Move origin content under the SToolbar.
-            ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams)
-                    mContentParent.getChildAt(1).getLayoutParams();
-            params.topMargin += toolbar.getHeight();
-            mContentParent.getChildAt(1).setLayoutParams(params);
+    SToolbar attach(SToolbar toolbar) {
+        // Add to container.
+        mContentParent.addView(toolbar, 0);
+        // The LinearLayout places the toolbar and the origin content by itself.
+        if (!(mContentParent instanceof LinearLayout) && mContentParent.getChildCount() > 1) {
+            toolbar.bindContentView(mContentParent.getChildAt(1));
         }
+        return toolbar;
     }
 
     /**
@@ -0,0 +1,283 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.VectorDrawable;
+import android.os.Build;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.graphics.drawable.VectorDrawableCompat;
+import android.support.v4.util.LruCache;
+import android.support.v7.content.res.AppCompatResources;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The process-wide cache of toolbar icons, keyed by resource id, target size, tint, density and theme.
+ * <p>
+ * The first request of an icon inflates it once, vector icons and tinted bitmap icons are rasterized
+ * to a bitmap at the size they will be drawn. The other drawables, such as state list, layer and
+ * animated drawables, are never rasterized, so they keep their states and animations.
+ * After that, every toolbar gets a drawable shares the cached {@link Drawable.ConstantState},
+ * so the icon is never parsed again.
+ * <p>
+ * The icons installed from {@link ToolbarIconAtlas} are regions of the atlas bitmap, they are never evicted.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/22 20:36
+ */
+final class IconCache {
+
+    /**
+     * The size of a cached icon which can't compute by its pixels.
+     */
+    private static final int DEFAULT_ENTRY_SIZE = 1024;
+
+    private static final IconCache INSTANCE = new IconCache();
+
+    static IconCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final LruCache<Key, Entry> mCache;
+    private volatile Map<Key, Entry> mAtlasEntries = Collections.emptyMap();
+
+    private IconCache() {
+        // Use 1/64 of the available memory for icons, at most 4MB.
+        int maxSize = (int) Math.min(Runtime.getRuntime().maxMemory() / 64, 4 * 1024 * 1024);
+        mCache = new LruCache<Key, Entry>(maxSize) {
+            @Override
+            protected int sizeOf(Key key, Entry value) {
+                return value.size;
+            }
+        };
+    }
+
+    /**
+     * Get the drawable of the icon described by ops.
+     *
+     * @return null if the ops doesn't specify an icon.
+     */
+    @Nullable
+    Drawable obtain(@NonNull Context context, @NonNull ImageViewOptions ops) {
+        if (ImageViewOptions.UN_INITIALIZE_RES_ID == ops.drawableResId) {
+            return null;
+        }
+        Resources resources = context.getResources();
+        Key key = new Key(resources, ItemViewPool.getInstance().getThemeResId(context), ops);
+        Entry entry = mAtlasEntries.get(key);
+        if (null == entry) {
+            entry = mCache.get(key);
+        }
+        if (null == entry) {
+            entry = create(context, key);
+            if (null == entry) {
+                return null;
+            }
+            mCache.put(key, entry);
+        }
+        return entry.state.newDrawable(resources);
+    }
+
+    /**
+     * Drop all cached icons, invoke it when the system is running low on memory.
+     * The icons of atlas are kept, they share one bitmap.
+     */
+    void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Install the regions of atlas, the icons described by the ops are drawn from the atlas since now.
+     *
+     * @param themeResId the theme which the icons of atlas are rasterized with.
+     */
+    void installAtlas(@NonNull Resources resources, int themeResId, @NonNull List<ImageViewOptions> ops,
+                      @NonNull List<Rect> regions, @NonNull Bitmap atlas) {
+        Map<Key, Entry> entries = new HashMap<>(ops.size());
+        for (int i = 0; i < ops.size(); i++) {
+            Rect region = regions.get(i);
+            entries.put(new Key(resources, themeResId, ops.get(i)), new Entry(new AtlasDrawable.State(atlas, region),
+                    region.width() * region.height() * 4));
+        }
+        mAtlasEntries = entries;
+    }
+
+    /**
+     * Compute the size of the rasterized icon, it covers the target size, so the scale type can only shrink it.
+     *
+     * @param targetWidth  the target width, 0 means follow the target height.
+     * @param targetHeight the target height, 0 means follow the target width.
+     * @return the width and height of the rasterized icon.
+     */
+    static int[] computeRasterSize(int targetWidth, int targetHeight, int intrinsicWidth, int intrinsicHeight) {
+        float scale = 1f;
+        if (targetWidth > 0 && targetHeight > 0) {
+            scale = Math.max(targetWidth / (float) intrinsicWidth, targetHeight / (float) intrinsicHeight);
+        } else if (targetWidth > 0) {
+            scale = targetWidth / (float) intrinsicWidth;
+        } else if (targetHeight > 0) {
+            scale = targetHeight / (float) intrinsicHeight;
+        }
+        return new int[]{
+                Math.max(1, Math.round(intrinsicWidth * scale)),
+                Math.max(1, Math.round(intrinsicHeight * scale))
+        };
+    }
+
+    /**
+     * Draw the drawable tinted into the region of canvas.
+     */
+    static void drawRaster(Drawable drawable, @ColorInt int tint, Canvas canvas, Rect region) {
+        Drawable target = drawable.mutate();
+        if (hasTint(tint)) {
+            target.setColorFilter(tint, PorterDuff.Mode.SRC_IN);
+        }
+        target.setBounds(region);
+        target.draw(canvas);
+    }
+
+    /**
+     * Whether the drawable can be replaced by a static bitmap, only the vector and the tinted bitmap,
+     * the other drawables may have states or animations.
+     */
+    static boolean shouldRasterize(Drawable drawable, @ColorInt int tint) {
+        return isVector(drawable) || (drawable instanceof BitmapDrawable && hasTint(tint));
+    }
+
+    static int targetSize(int sizeExcludePadding) {
+        return Utils.isLayoutParamsSpecialValue(sizeExcludePadding) ? 0 : sizeExcludePadding;
+    }
+
+    @Nullable
+    private Entry create(Context context, Key key) {
+        Drawable drawable = AppCompatResources.getDrawable(context, key.resId);
+        if (null == drawable) {
+            return null;
+        }
+        int intrinsicWidth = drawable.getIntrinsicWidth();
+        int intrinsicHeight = drawable.getIntrinsicHeight();
+        if (shouldRasterize(drawable, key.tint) && intrinsicWidth > 0 && intrinsicHeight > 0) {
+            return rasterize(context.getResources(), drawable, key, intrinsicWidth, intrinsicHeight);
+        }
+        // Can't rasterize, share the constant state directly.
+        if (hasTint(key.tint)) {
+            drawable = drawable.mutate();
+            drawable.setColorFilter(key.tint, PorterDuff.Mode.SRC_IN);
+        }
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (null == state) {
+            return null;
+        }
+        int size = drawable instanceof BitmapDrawable && null != ((BitmapDrawable) drawable).getBitmap()
+                ? ((BitmapDrawable) drawable).getBitmap().getByteCount() : DEFAULT_ENTRY_SIZE;
+        return new Entry(state, size);
+    }
+
+    /**
+     * Draw the drawable to a bitmap, the bitmap covers the target size, so the scale type can
+     * only shrink it.
+     */
+    private Entry rasterize(Resources resources, Drawable drawable, Key key,
+                            int intrinsicWidth, int intrinsicHeight) {
+        int[] size = computeRasterSize(key.width, key.height, intrinsicWidth, intrinsicHeight);
+        Bitmap bitmap = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+        // The intrinsic size of the bitmap drawable is its pixel size.
+        bitmap.setDensity(key.densityDpi);
+        drawRaster(drawable, key.tint, new Canvas(bitmap), new Rect(0, 0, size[0], size[1]));
+        return new Entry(new BitmapDrawable(resources, bitmap).getConstantState(), bitmap.getByteCount());
+    }
+
+    private static boolean hasTint(@ColorInt int tint) {
+        return Color.TRANSPARENT != tint;
+    }
+
+    /**
+     * Whether the drawable is a static vector, it is cheaper to draw the rasterized bitmap.
+     */
+    private static boolean isVector(Drawable drawable) {
+        if (drawable instanceof VectorDrawableCompat) {
+            return true;
+        }
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isPlatformVector(drawable);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static boolean isPlatformVector(Drawable drawable) {
+        return drawable instanceof VectorDrawable;
+    }
+
+    private static final class Key {
+
+        @DrawableRes
+        final int resId;
+        final int width;
+        final int height;
+        @ColorInt
+        final int tint;
+        final int densityDpi;
+        /**
+         * The vector may refer to the attributes of theme.
+         */
+        final int themeResId;
+
+        Key(Resources resources, int themeResId, ImageViewOptions ops) {
+            this.resId = ops.drawableResId;
+            this.width = targetSize(ops.widthExcludePadding);
+            this.height = targetSize(ops.heightExcludePadding);
+            this.tint = ops.tintColor;
+            this.densityDpi = resources.getDisplayMetrics().densityDpi;
+            this.themeResId = themeResId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return resId == other.resId && width == other.width && height == other.height
+                    && tint == other.tint && densityDpi == other.densityDpi && themeResId == other.themeResId;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = resId;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + tint;
+            result = 31 * result + densityDpi;
+            result = 31 * result + themeResId;
+            return result;
+        }
+    }
+
+    private static final class Entry {
+
+        final Drawable.ConstantState state;
+        final int size;
+
+        Entry(Drawable.ConstantState state, int size) {
+            this.state = state;
+            this.size = size;
+        }
+    }
+
+}
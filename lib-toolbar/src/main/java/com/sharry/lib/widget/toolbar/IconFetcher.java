@@ -0,0 +1,30 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fetch the icon of the uri which scheme isn't file or content, such as http.
+ * <p>
+ * The fetched stream is written to the disk cache of toolbar, so a uri is fetched once until
+ * it is evicted. Set it by {@link SToolbar#setIconFetcher(IconFetcher)}.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/31 20:05
+ */
+public interface IconFetcher {
+
+    /**
+     * Open the stream of the icon, the stream will be closed by toolbar.
+     */
+    @WorkerThread
+    @NonNull
+    InputStream fetch(@NonNull Context context, @NonNull Uri uri) throws IOException;
+
+}
@@ -0,0 +1,446 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+import android.view.View;
+import android.widget.ImageView;
+
+import com.sharry.toolbar.R;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Load the icon of {@link ImageViewOptions#uri} on background threads.
+ * <p>
+ * The icon is decoded with the sample size and scaled to the slot size computed from the options,
+ * the result is kept in a memory LRU. The icon of a remote uri is fetched by {@link IconFetcher} once,
+ * and kept in the disk cache. The request is paused when its host detached from window, and resumed
+ * when attached again.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/31 20:10
+ */
+final class IconLoader {
+
+    private static final String TAG = IconLoader.class.getSimpleName();
+    private static final String DISK_CACHE_DIR = "stoolbar-icons";
+    private static final long MAX_DISK_CACHE_SIZE = 16 * 1024 * 1024;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int THREAD_COUNT = 2;
+    /**
+     * The target size of the icon which size is WRAP_CONTENT, it is the default height of toolbar.
+     */
+    private static final int DEFAULT_TARGET_SIZE_DP = 56;
+
+    /**
+     * The callback of the request, it is invoked on the main thread.
+     */
+    interface Callback {
+
+        void onLoaded(@NonNull Drawable drawable);
+
+    }
+
+    private static final IconLoader INSTANCE = new IconLoader();
+
+    static IconLoader getInstance() {
+        return INSTANCE;
+    }
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "SToolbar-IconLoader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final Object mDiskLock = new Object();
+    private volatile IconFetcher mFetcher;
+
+    private IconLoader() {
+        // Use 1/32 of the available memory for icons, at most 8MB.
+        int maxSize = (int) Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024);
+        mMemoryCache = new LruCache<String, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    void setFetcher(@Nullable IconFetcher fetcher) {
+        mFetcher = fetcher;
+    }
+
+    /**
+     * Load the icon into imageView, the drawable of {@link ImageViewOptions#drawableResId} is shown
+     * as placeholder until it is loaded.
+     */
+    @MainThread
+    void into(@NonNull final ImageView imageView, @NonNull ImageViewOptions ops) {
+        cancel(imageView);
+        Context context = imageView.getContext();
+        Drawable cached = getCached(context, ops);
+        if (null != cached) {
+            imageView.setImageDrawable(cached);
+            return;
+        }
+        imageView.setImageDrawable(IconCache.getInstance().obtain(context, ops));
+        Request request = load(imageView, ops, new Callback() {
+            @Override
+            public void onLoaded(@NonNull Drawable drawable) {
+                imageView.setTag(R.id.lib_toolbar_tag_icon_request, null);
+                imageView.setImageDrawable(drawable);
+            }
+        });
+        imageView.setTag(R.id.lib_toolbar_tag_icon_request, request);
+    }
+
+    /**
+     * Cancel the request of view started by {@link #into}.
+     * <p>
+     * It is invoked on main thread, except the preloader completes a view which never had a request,
+     * then it only reads the tag of the view owned by the preloader thread.
+     */
+    void cancel(@NonNull View view) {
+        Object request = view.getTag(R.id.lib_toolbar_tag_icon_request);
+        if (request instanceof Request) {
+            ((Request) request).cancel();
+            view.setTag(R.id.lib_toolbar_tag_icon_request, null);
+        }
+    }
+
+    /**
+     * Get the icon from the memory cache.
+     *
+     * @return null if it isn't loaded.
+     */
+    @Nullable
+    Drawable getCached(@NonNull Context context, @NonNull ImageViewOptions ops) {
+        Bitmap bitmap = mMemoryCache.get(getKey(ops.uri, getTargetWidth(context, ops), getTargetHeight(context, ops)));
+        return null == bitmap ? null : new BitmapDrawable(context.getResources(), bitmap);
+    }
+
+    /**
+     * Load the icon for host, the callback isn't invoked if the request failed.
+     */
+    @MainThread
+    @NonNull
+    Request load(@NonNull View host, @NonNull ImageViewOptions ops, @NonNull Callback callback) {
+        Request request = new Request(host, ops.uri, getTargetWidth(host.getContext(), ops),
+                getTargetHeight(host.getContext(), ops), callback);
+        request.start();
+        return request;
+    }
+
+    /**
+     * Decode the icon, the sample size keeps it not smaller than the target size, then it is scaled
+     * to cover the target size, so the scale type can only shrink it.
+     */
+    @WorkerThread
+    private Bitmap decode(Context context, Uri uri, int targetWidth, int targetHeight) throws IOException {
+        File file = getLocalFile(context, uri);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(context, uri, file, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Can't decode the icon: " + uri);
+        }
+        float scale;
+        if (targetWidth > 0 && targetHeight > 0) {
+            scale = Math.max(targetWidth / (float) options.outWidth, targetHeight / (float) options.outHeight);
+        } else if (targetWidth > 0) {
+            scale = targetWidth / (float) options.outWidth;
+        } else {
+            scale = targetHeight / (float) options.outHeight;
+        }
+        scale = Math.min(1f, scale);
+        int width = Math.max(1, Math.round(options.outWidth * scale));
+        int height = Math.max(1, Math.round(options.outHeight * scale));
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = decode(context, uri, file, options);
+        if (null == bitmap) {
+            throw new IOException("Can't decode the icon: " + uri);
+        }
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = scaled;
+        }
+        return bitmap;
+    }
+
+    private Bitmap decode(Context context, Uri uri, @Nullable File file, BitmapFactory.Options options)
+            throws IOException {
+        if (null != file) {
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        }
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            Utils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Get the local file of uri, the remote uri is fetched into the disk cache.
+     *
+     * @return null if the uri is read by content resolver.
+     */
+    @Nullable
+    private File getLocalFile(Context context, Uri uri) throws IOException {
+        String scheme = uri.getScheme();
+        if (null == scheme || ContentResolver.SCHEME_FILE.equals(scheme)) {
+            return new File(uri.getPath());
+        }
+        if (ContentResolver.SCHEME_CONTENT.equals(scheme) || ContentResolver.SCHEME_ANDROID_RESOURCE.equals(scheme)) {
+            return null;
+        }
+        return fetchToDiskCache(context, uri);
+    }
+
+    private File fetchToDiskCache(Context context, Uri uri) throws IOException {
+        File dir = new File(context.getCacheDir(), DISK_CACHE_DIR);
+        File file = new File(dir, Utils.sha1(uri.toString()));
+        synchronized (mDiskLock) {
+            if (file.exists()) {
+                // Mark it recently used.
+                file.setLastModified(System.currentTimeMillis());
+                return file;
+            }
+        }
+        IconFetcher fetcher = mFetcher;
+        if (null == fetcher) {
+            throw new IOException("Please set IconFetcher for the icon: " + uri);
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Can't create the disk cache: " + dir);
+        }
+        // Write to a temp file first, so the disk cache never contains a broken icon.
+        File temp = File.createTempFile(file.getName(), TEMP_FILE_SUFFIX, dir);
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = fetcher.fetch(context, uri);
+            out = new FileOutputStream(temp);
+            byte[] buffer = new byte[8 * 1024];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        } finally {
+            Utils.closeQuietly(in);
+            Utils.closeQuietly(out);
+        }
+        synchronized (mDiskLock) {
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                throw new IOException("Can't write the disk cache: " + file);
+            }
+            trimDiskCache(dir);
+        }
+        return file;
+    }
+
+    /**
+     * Delete the least recently used icons until the disk cache is smaller than the max size.
+     */
+    private void trimDiskCache(File dir) {
+        File[] files = dir.listFiles();
+        if (null == files) {
+            return;
+        }
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= MAX_DISK_CACHE_SIZE) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long diff = o1.lastModified() - o2.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (File file : files) {
+            if (size <= MAX_DISK_CACHE_SIZE) {
+                break;
+            }
+            if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                // It is being written.
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private static int getTargetWidth(Context context, ImageViewOptions ops) {
+        if (!Utils.isLayoutParamsSpecialValue(ops.widthExcludePadding)) {
+            return ops.widthExcludePadding;
+        }
+        return Utils.isLayoutParamsSpecialValue(ops.heightExcludePadding)
+                ? Utils.dp2px(context, DEFAULT_TARGET_SIZE_DP) : 0;
+    }
+
+    private static int getTargetHeight(Context context, ImageViewOptions ops) {
+        if (!Utils.isLayoutParamsSpecialValue(ops.heightExcludePadding)) {
+            return ops.heightExcludePadding;
+        }
+        return Utils.isLayoutParamsSpecialValue(ops.widthExcludePadding)
+                ? Utils.dp2px(context, DEFAULT_TARGET_SIZE_DP) : 0;
+    }
+
+    private static String getKey(Uri uri, int targetWidth, int targetHeight) {
+        return uri + "@" + targetWidth + "x" + targetHeight;
+    }
+
+    /**
+     * The request of an icon, it is paused when the host detached, and resumed when attached again.
+     */
+    final class Request implements Runnable, View.OnAttachStateChangeListener {
+
+        private final View mHost;
+        private final Context mAppContext;
+        private final Uri mUri;
+        private final int mTargetWidth;
+        private final int mTargetHeight;
+        private final String mKey;
+        private final Callback mCallback;
+        // Accessed on main thread only.
+        private Future<?> mFuture;
+        private boolean mFinished = false;
+
+        Request(View host, Uri uri, int targetWidth, int targetHeight, Callback callback) {
+            mHost = host;
+            mAppContext = host.getContext().getApplicationContext();
+            mUri = uri;
+            mTargetWidth = targetWidth;
+            mTargetHeight = targetHeight;
+            mKey = getKey(uri, targetWidth, targetHeight);
+            mCallback = callback;
+        }
+
+        @MainThread
+        void start() {
+            mHost.addOnAttachStateChangeListener(this);
+            submit();
+        }
+
+        /**
+         * Cancel this request, the callback will never be invoked.
+         */
+        @MainThread
+        void cancel() {
+            mFinished = true;
+            mHost.removeOnAttachStateChangeListener(this);
+            pause();
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            submit();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            pause();
+        }
+
+        @WorkerThread
+        @Override
+        public void run() {
+            Bitmap bitmap = mMemoryCache.get(mKey);
+            if (null == bitmap) {
+                try {
+                    bitmap = decode(mAppContext, mUri, mTargetWidth, mTargetHeight);
+                    mMemoryCache.put(mKey, bitmap);
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "Load icon failed: " + mUri, e);
+                    return;
+                }
+            }
+            final Bitmap result = bitmap;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(result);
+                }
+            });
+        }
+
+        private void submit() {
+            if (null == mFuture && !mFinished) {
+                mFuture = mExecutor.submit(this);
+            }
+        }
+
+        private void pause() {
+            if (null != mFuture) {
+                mFuture.cancel(false);
+                mFuture = null;
+            }
+        }
+
+        private void deliver(Bitmap bitmap) {
+            if (mFinished) {
+                return;
+            }
+            mFinished = true;
+            mFuture = null;
+            mHost.removeOnAttachStateChangeListener(this);
+            mCallback.onLoaded(new BitmapDrawable(mHost.getResources(), bitmap));
+        }
+
+    }
+
+}
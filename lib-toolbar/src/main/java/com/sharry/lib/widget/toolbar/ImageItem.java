@@ -0,0 +1,169 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+/**
+ * The image sub item drawn by SToolbar directly, instead of an ImageView.
+ * <p>
+ * The icon of uri is loaded when the item attached, the placeholder is drawn until it is loaded.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/16 21:20
+ */
+class ImageItem extends ToolbarItem implements IconLoader.Callback {
+
+    private final ImageViewOptions mOps;
+    private Drawable mDrawable;
+    private SToolbar mHost;
+    private IconLoader.Request mRequest;
+    private boolean mLoaded;
+
+    ImageItem(@NonNull Context context, @NonNull ImageViewOptions ops) {
+        mOps = ops;
+        Drawable cached = null == ops.uri ? null : IconLoader.getInstance().getCached(context, ops);
+        mLoaded = null == ops.uri || null != cached;
+        mDrawable = null != cached ? cached : IconCache.getInstance().obtain(context, ops);
+    }
+
+    Drawable getDrawable() {
+        return mDrawable;
+    }
+
+    @Override
+    View.OnClickListener getListener() {
+        return mOps.listener;
+    }
+
+    @Override
+    Options getOptions() {
+        return mOps;
+    }
+
+    @Override
+    void onAttach(@NonNull SToolbar host) {
+        mHost = host;
+        if (null != mDrawable) {
+            mDrawable.setCallback(host);
+        }
+        if (!mLoaded && null == mRequest) {
+            mRequest = IconLoader.getInstance().load(host, mOps, this);
+        }
+    }
+
+    @Override
+    void onDetach(@NonNull SToolbar host) {
+        if (null != mRequest) {
+            mRequest.cancel();
+            mRequest = null;
+        }
+        mHost = null;
+    }
+
+    @Override
+    public void onLoaded(@NonNull Drawable drawable) {
+        mRequest = null;
+        mLoaded = true;
+        if (null != mDrawable) {
+            mDrawable.setCallback(null);
+        }
+        mDrawable = drawable;
+        if (null == mHost) {
+            return;
+        }
+        drawable.setCallback(mHost);
+        if (Utils.isLayoutParamsSpecialValue(mOps.widthExcludePadding)
+                || ViewGroup.LayoutParams.WRAP_CONTENT == mOps.heightExcludePadding) {
+            // The size comes from the placeholder, measure again.
+            mHost.requestLayout();
+        } else if (!bounds.isEmpty()) {
+            layoutDrawable(bounds.left + mOps.paddingLeft, bounds.top,
+                    bounds.right - mOps.paddingRight, bounds.bottom);
+        }
+        mHost.invalidate();
+    }
+
+    @Override
+    void measure(int parentWidthMeasureSpec, int widthUsed, int parentHeightMeasureSpec,
+                 int heightUsed, int minimumHeight) {
+        int intrinsicWidth = null == mDrawable ? 0 : Math.max(0, mDrawable.getIntrinsicWidth());
+        int intrinsicHeight = null == mDrawable ? 0 : Math.max(0, mDrawable.getIntrinsicHeight());
+        int contentWidth = Utils.isLayoutParamsSpecialValue(mOps.widthExcludePadding)
+                ? intrinsicWidth : mOps.widthExcludePadding;
+        int contentHeight = Utils.isLayoutParamsSpecialValue(mOps.heightExcludePadding)
+                ? intrinsicHeight : mOps.heightExcludePadding;
+        measuredWidth = contentWidth + mOps.paddingLeft + mOps.paddingRight;
+        measuredHeight = ViewGroup.LayoutParams.MATCH_PARENT == mOps.heightExcludePadding
+                ? minimumHeight : contentHeight;
+    }
+
+    @Override
+    void stretch(int rowHeight) {
+        if (ViewGroup.LayoutParams.MATCH_PARENT == mOps.heightExcludePadding) {
+            measuredHeight = rowHeight;
+        }
+    }
+
+    @Override
+    int layout(int left, int rowTop, int rowHeight) {
+        int next = super.layout(left, rowTop, rowHeight);
+        if (null != mDrawable) {
+            layoutDrawable(bounds.left + mOps.paddingLeft, bounds.top,
+                    bounds.right - mOps.paddingRight, bounds.bottom);
+        }
+        return next;
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        if (null == mDrawable) {
+            return;
+        }
+        int saveCount = canvas.save();
+        canvas.clipRect(bounds.left + mOps.paddingLeft, bounds.top,
+                bounds.right - mOps.paddingRight, bounds.bottom);
+        mDrawable.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Set the drawable bounds in the content box associated with the scale type.
+     */
+    private void layoutDrawable(int left, int top, int right, int bottom) {
+        int boxWidth = right - left;
+        int boxHeight = bottom - top;
+        int intrinsicWidth = mDrawable.getIntrinsicWidth();
+        int intrinsicHeight = mDrawable.getIntrinsicHeight();
+        if (intrinsicWidth <= 0 || intrinsicHeight <= 0 || ImageView.ScaleType.FIT_XY == mOps.scaleType) {
+            mDrawable.setBounds(left, top, right, bottom);
+            return;
+        }
+        float scale;
+        switch (mOps.scaleType) {
+            case CENTER:
+                scale = 1f;
+                break;
+            case CENTER_CROP:
+                scale = Math.max(boxWidth / (float) intrinsicWidth, boxHeight / (float) intrinsicHeight);
+                break;
+            case CENTER_INSIDE:
+                scale = Math.min(1f, Math.min(boxWidth / (float) intrinsicWidth, boxHeight / (float) intrinsicHeight));
+                break;
+            default:
+                scale = Math.min(boxWidth / (float) intrinsicWidth, boxHeight / (float) intrinsicHeight);
+                break;
+        }
+        int width = Math.round(intrinsicWidth * scale);
+        int height = Math.round(intrinsicHeight * scale);
+        int drawableLeft = left + (boxWidth - width) / 2;
+        int drawableTop = top + (boxHeight - height) / 2;
+        mDrawable.setBounds(drawableLeft, drawableTop, drawableLeft + width, drawableTop + height);
+    }
+
+}
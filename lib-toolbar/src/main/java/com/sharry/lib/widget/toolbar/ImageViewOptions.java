@@ -1,8 +1,13 @@
 package com.sharry.lib.widget.toolbar;
 
+import android.graphics.Color;
+import android.net.Uri;
+import android.support.annotation.ColorInt;
 import android.support.annotation.Dimension;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
+import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
@@ -26,12 +31,17 @@ public class ImageViewOptions implements Options<ImageView> {
     static final int DEFAULT_WIDTH = ViewGroup.LayoutParams.WRAP_CONTENT;
     static final int DEFAULT_Height = ViewGroup.LayoutParams.WRAP_CONTENT;
     static final int DEFAULT_PADDING = 0;
+    static final int DEFAULT_TINT_COLOR = Color.TRANSPARENT;
     /*
       Fields associated with image menu.
     */
     @DrawableRes
     int drawableResId = UN_INITIALIZE_RES_ID;
+    // The icon loaded on background, the drawable res is the placeholder.
+    Uri uri = null;
     ImageView.ScaleType scaleType = DEFAULT_SCALE_TYPE;
+    @ColorInt
+    int tintColor = DEFAULT_TINT_COLOR;
     // Widget padding
     @Dimension(unit = PX)
     int paddingLeft = DEFAULT_PADDING;
@@ -44,6 +54,13 @@ public class ImageViewOptions implements Options<ImageView> {
     int heightExcludePadding = DEFAULT_Height;
     // listener callback.
     View.OnClickListener listener = null;
+    // The lower priority item moves into overflow menu first.
+    int priority = PRIORITY_NEVER_OVERFLOW;
+    // The text shown in overflow menu instead of the icon.
+    CharSequence overflowTitle = null;
+    // The id to find the item in toolbar.
+    @IdRes
+    int id = View.NO_ID;
 
     /**
      * U can get Builder instance from here.
@@ -84,21 +101,108 @@ public class ImageViewOptions implements Options<ImageView> {
             view.setOnClickListener(listener);
         }
         // Set some fields associated with this imageView.
-        view.setImageResource(drawableResId);
+        if (null != uri) {
+            IconLoader.getInstance().into(view, this);
+        } else {
+            IconLoader.getInstance().cancel(view);
+            view.setImageDrawable(IconCache.getInstance().obtain(view.getContext(), this));
+        }
         view.setScaleType(scaleType);
     }
 
+    /**
+     * Apply the fields differ from the old options which completed the view.
+     */
+    void update(ImageView view, ImageViewOptions old) {
+        boolean paddingChanged = paddingLeft != old.paddingLeft || paddingRight != old.paddingRight;
+        if (paddingChanged) {
+            view.setPadding(paddingLeft, 0, paddingRight, 0);
+        }
+        boolean sizeChanged = widthExcludePadding != old.widthExcludePadding
+                || heightExcludePadding != old.heightExcludePadding;
+        if (paddingChanged || sizeChanged) {
+            int validWidth = Utils.isLayoutParamsSpecialValue(widthExcludePadding) ? widthExcludePadding :
+                    widthExcludePadding + view.getPaddingLeft() + view.getPaddingRight();
+            int validHeight = Utils.isLayoutParamsSpecialValue(heightExcludePadding) ? heightExcludePadding :
+                    heightExcludePadding + view.getPaddingTop() + view.getPaddingBottom();
+            ViewGroup.LayoutParams params = view.getLayoutParams();
+            if (null == params) {
+                params = new ViewGroup.LayoutParams(validWidth, validHeight);
+            } else {
+                params.width = validWidth;
+                params.height = validHeight;
+            }
+            view.setLayoutParams(params);
+        }
+        if (listener != old.listener) {
+            Utils.setOnClickListener(view, listener);
+        }
+        // The cached icon is rasterized at the target size, reload it when the size changed.
+        if (sizeChanged || drawableResId != old.drawableResId || tintColor != old.tintColor
+                || (null == uri ? null != old.uri : !uri.equals(old.uri))) {
+            if (null != uri) {
+                IconLoader.getInstance().into(view, this);
+            } else {
+                IconLoader.getInstance().cancel(view);
+                view.setImageDrawable(IconCache.getInstance().obtain(view.getContext(), this));
+            }
+        }
+        if (scaleType != old.scaleType) {
+            view.setScaleType(scaleType);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImageViewOptions)) {
+            return false;
+        }
+        ImageViewOptions other = (ImageViewOptions) o;
+        return drawableResId == other.drawableResId && scaleType == other.scaleType
+                && tintColor == other.tintColor && paddingLeft == other.paddingLeft
+                && paddingRight == other.paddingRight
+                && widthExcludePadding == other.widthExcludePadding
+                && heightExcludePadding == other.heightExcludePadding && listener == other.listener
+                && priority == other.priority && TextUtils.equals(overflowTitle, other.overflowTitle)
+                && id == other.id && (null == uri ? null == other.uri : uri.equals(other.uri));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = drawableResId;
+        result = 31 * result + (null == scaleType ? 0 : scaleType.hashCode());
+        result = 31 * result + tintColor;
+        result = 31 * result + paddingLeft;
+        result = 31 * result + paddingRight;
+        result = 31 * result + widthExcludePadding;
+        result = 31 * result + heightExcludePadding;
+        result = 31 * result + (null == listener ? 0 : listener.hashCode());
+        result = 31 * result + priority;
+        result = 31 * result + (null == overflowTitle ? 0 : overflowTitle.toString().hashCode());
+        result = 31 * result + id;
+        result = 31 * result + (null == uri ? 0 : uri.hashCode());
+        return result;
+    }
+
     /**
      * Copy values from other instance.
      */
     private void copyFrom(@NonNull ImageViewOptions other) {
         this.drawableResId = other.drawableResId;
         this.scaleType = other.scaleType;
+        this.tintColor = other.tintColor;
         this.paddingLeft = other.paddingLeft;
         this.paddingRight = other.paddingRight;
         this.heightExcludePadding = other.heightExcludePadding;
         this.widthExcludePadding = other.widthExcludePadding;
         this.listener = other.listener;
+        this.priority = other.priority;
+        this.overflowTitle = other.overflowTitle;
+        this.id = other.id;
+        this.uri = other.uri;
     }
 
     /**
@@ -122,11 +226,29 @@ public class ImageViewOptions implements Options<ImageView> {
             return this;
         }
 
+        /**
+         * Set the uri of icon, the scheme can be file, content, android.resource, or the schemes
+         * supported by {@link IconFetcher}. The icon is decoded on background with the size of this options,
+         * the drawable res is shown as placeholder until it is loaded.
+         */
+        public Builder setUri(Uri uri) {
+            op.uri = uri;
+            return this;
+        }
+
         public Builder setScaleType(ImageView.ScaleType scaleType) {
             op.scaleType = scaleType;
             return this;
         }
 
+        /**
+         * Set the tint color of the icon, {@link Color#TRANSPARENT} means no tint.
+         */
+        public Builder setTintColor(@ColorInt int tintColor) {
+            op.tintColor = tintColor;
+            return this;
+        }
+
         public Builder setPaddingLeft(@Dimension(unit = PX) int paddingLeft) {
             op.paddingLeft = paddingLeft;
             return this;
@@ -152,6 +274,31 @@ public class ImageViewOptions implements Options<ImageView> {
             return this;
         }
 
+        /**
+         * Set the priority of the right menu item, when the menus are too wide, the items move into
+         * the overflow menu from the lowest priority. The item never overflows by default.
+         */
+        public Builder setPriority(int priority) {
+            op.priority = priority;
+            return this;
+        }
+
+        /**
+         * Set the text shown in the overflow menu, the icon is shown if absent.
+         */
+        public Builder setOverflowTitle(CharSequence overflowTitle) {
+            op.overflowTitle = overflowTitle;
+            return this;
+        }
+
+        /**
+         * Set the item id, U can update, remove or hide the item by id later.
+         */
+        public Builder setId(@IdRes int id) {
+            op.id = id;
+            return this;
+        }
+
         public ImageViewOptions build() {
             return op;
         }
@@ -0,0 +1,206 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.MutableContextWrapper;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.support.annotation.NonNull;
+import android.support.annotation.StyleRes;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.sharry.toolbar.R;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The bounded recycling pool of menu item views, shared by toolbars styled with the same theme.
+ * <p>
+ * The views are created with {@link MutableContextWrapper}, the base context is switched to the
+ * application when they are released, so the pool never holds an activity. The defaults of TextView are
+ * resolved from the theme, so the views are kept apart by the {@link Resources.Theme} instance which styled
+ * them rather than a theme resource id, it covers {@code setTheme()} and the overlays of
+ * {@link ContextThemeWrapper}. The views of a theme are dropped with the theme, such as the activity destroyed.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/21 14:08
+ */
+final class ItemViewPool {
+
+    /**
+     * The max count of recycled views associated with one theme and one view type.
+     */
+    private static final int MAX_POOL_SIZE = 8;
+    private static final int NO_THEME = 0;
+
+    private static final ItemViewPool INSTANCE = new ItemViewPool();
+
+    static ItemViewPool getInstance() {
+        return INSTANCE;
+    }
+
+    private final Map<Resources.Theme, ArrayDeque<TextView>> mTextViews = new WeakHashMap<>();
+    private final Map<Resources.Theme, ArrayDeque<ImageView>> mImageViews = new WeakHashMap<>();
+    private final Map<ComponentName, Integer> mThemeResIds = new HashMap<>();
+
+    private ItemViewPool() {
+    }
+
+    /**
+     * Get a recycled TextView associated with the theme of context, or create a new one.
+     */
+    synchronized TextView obtainTextView(@NonNull Context context) {
+        Resources.Theme theme = context.getTheme();
+        TextView textView = poll(mTextViews, theme);
+        if (null == textView) {
+            textView = new TextView(new MutableContextWrapper(context));
+            setTheme(textView, theme);
+        } else {
+            ((MutableContextWrapper) textView.getContext()).setBaseContext(context);
+        }
+        return textView;
+    }
+
+    /**
+     * Get a recycled ImageView associated with the theme of context, or create a new one.
+     */
+    synchronized ImageView obtainImageView(@NonNull Context context) {
+        Resources.Theme theme = context.getTheme();
+        ImageView imageView = poll(mImageViews, theme);
+        if (null == imageView) {
+            imageView = new ImageView(new MutableContextWrapper(context));
+            setTheme(imageView, theme);
+        } else {
+            ((MutableContextWrapper) imageView.getContext()).setBaseContext(context);
+        }
+        return imageView;
+    }
+
+    /**
+     * Release the view which obtained from this pool, the view must be detached from its parent.
+     */
+    synchronized void release(@NonNull View view) {
+        Object themeRef = view.getTag(R.id.lib_toolbar_tag_theme);
+        Resources.Theme theme = themeRef instanceof WeakReference
+                ? (Resources.Theme) ((WeakReference<?>) themeRef).get() : null;
+        if (null == theme) {
+            // Unknown theme or the theme has gone, never reuse it.
+            return;
+        }
+        // Drop the references to the activity.
+        view.setOnClickListener(null);
+        view.setClickable(false);
+        view.setVisibility(View.VISIBLE);
+        // Drop the state set by options and item listeners.
+        view.setId(View.NO_ID);
+        view.setEnabled(true);
+        view.setContentDescription(null);
+        // Drop the draw properties of collapse mode.
+        view.setAlpha(1f);
+        view.setTranslationX(0);
+        view.setTranslationY(0);
+        ((MutableContextWrapper) view.getContext()).setBaseContext(
+                view.getContext().getApplicationContext());
+        if (view instanceof TextView) {
+            TextPrecomputer.getInstance().setText((TextView) view, null);
+            view.setTag(R.id.lib_toolbar_tag_auto_fit, null);
+            offer(mTextViews, theme, (TextView) view);
+        } else if (view instanceof ImageView) {
+            IconLoader.getInstance().cancel(view);
+            ((ImageView) view).setImageDrawable(null);
+            offer(mImageViews, theme, (ImageView) view);
+        }
+    }
+
+    /**
+     * Drop all recycled views.
+     */
+    synchronized void clear() {
+        mTextViews.clear();
+        mImageViews.clear();
+    }
+
+    /**
+     * The view only refers the theme weakly, the pooled views must not keep their keys alive.
+     */
+    private void setTheme(View view, Resources.Theme theme) {
+        if (null != theme) {
+            view.setTag(R.id.lib_toolbar_tag_theme, new WeakReference<>(theme));
+        }
+    }
+
+    private <T extends View> T poll(Map<Resources.Theme, ArrayDeque<T>> pools, Resources.Theme theme) {
+        ArrayDeque<T> pool = null == theme ? null : pools.get(theme);
+        return null == pool ? null : pool.poll();
+    }
+
+    private <T extends View> void offer(Map<Resources.Theme, ArrayDeque<T>> pools, Resources.Theme theme, T view) {
+        ArrayDeque<T> pool = pools.get(theme);
+        if (null == pool) {
+            pool = new ArrayDeque<>(MAX_POOL_SIZE);
+            pools.put(theme, pool);
+        }
+        if (pool.size() < MAX_POOL_SIZE) {
+            pool.offer(view);
+        }
+    }
+
+    /**
+     * Get the theme resource id of the {@link ThemedContext} or the activity which the context wrapped,
+     * the theme of activity is cached associated with the activity component.
+     * <p>
+     * It is the declared theme, the views are never pooled by it, see {@link #obtainTextView}.
+     */
+    synchronized int getThemeResId(Context context) {
+        Activity activity = null;
+        while (context instanceof ContextWrapper) {
+            if (context instanceof ThemedContext) {
+                return ((ThemedContext) context).themeResId;
+            }
+            if (context instanceof Activity) {
+                activity = (Activity) context;
+                break;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        if (null == activity) {
+            return NO_THEME;
+        }
+        ComponentName component = activity.getComponentName();
+        Integer themeResId = mThemeResIds.get(component);
+        if (null == themeResId) {
+            try {
+                themeResId = activity.getPackageManager().getActivityInfo(component, 0).getThemeResource();
+            } catch (PackageManager.NameNotFoundException e) {
+                themeResId = NO_THEME;
+            }
+            mThemeResIds.put(component, themeResId);
+        }
+        return themeResId;
+    }
+
+    /**
+     * The context without activity which the views are styled with a known theme, such as the context
+     * of preloaded toolbars, so their icons are cached with the icons of activities in same theme.
+     */
+    static final class ThemedContext extends ContextThemeWrapper {
+
+        final int themeResId;
+
+        ThemedContext(Context base, @StyleRes int themeResId) {
+            super(base, themeResId);
+            this.themeResId = themeResId;
+        }
+    }
+
+}
@@ -11,6 +11,11 @@ import android.view.View;
  */
 public interface Options<T extends View> {
 
+    /**
+     * The priority of the menu item which never moves into the overflow menu.
+     */
+    int PRIORITY_NEVER_OVERFLOW = Integer.MAX_VALUE;
+
     /**
      * U can use this options to completion view
      */
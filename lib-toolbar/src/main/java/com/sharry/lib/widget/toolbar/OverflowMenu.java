@@ -0,0 +1,200 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.ListPopupWindow;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.sharry.toolbar.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The overflow menu of the right menu items which collapsed in measure.
+ * <p>
+ * The button is drawn by SToolbar directly, the popup and its rows are created when it is opened
+ * first time, the rows are recreated from the options of the collapsed items.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/28 10:20
+ */
+final class OverflowMenu {
+
+    private static final int POPUP_WIDTH_DP = 180;
+    private static final int ROW_HEIGHT_DP = 48;
+    private static final int ROW_PADDING_DP = 16;
+    private static final int ROW_TEXT_SIZE_SP = 16;
+
+    private final SToolbar mHost;
+    private final List<ToolbarItem> mSlot;
+    private final ImageItem mButton;
+    private final List<ToolbarItem> mCollapsedItems = new ArrayList<>();
+    private ListPopupWindow mPopup;
+    private Adapter mAdapter;
+
+    OverflowMenu(@NonNull SToolbar host, @NonNull List<ToolbarItem> slot, int paddingRight) {
+        mHost = host;
+        mSlot = slot;
+        mButton = new ImageItem(host.getContext(), ImageViewOptions.Builder()
+                .setDrawableResId(R.drawable.lib_toolbar_icon_overflow)
+                .setPaddingRight(paddingRight)
+                .setListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        show();
+                    }
+                })
+                .build());
+        mButton.onAttach(host);
+    }
+
+    /**
+     * Get the button which opens the overflow menu, it is a drawn item.
+     */
+    ToolbarItem getButton() {
+        return mButton;
+    }
+
+    void show() {
+        mCollapsedItems.clear();
+        for (ToolbarItem item : mSlot) {
+            if (item.overflowed) {
+                mCollapsedItems.add(item);
+            }
+        }
+        if (mCollapsedItems.isEmpty()) {
+            return;
+        }
+        if (null == mPopup) {
+            Context context = mHost.getContext();
+            mAdapter = new Adapter();
+            mPopup = new ListPopupWindow(context);
+            mPopup.setAdapter(mAdapter);
+            mPopup.setAnchorView(mHost);
+            mPopup.setModal(true);
+            mPopup.setDropDownGravity(Gravity.END);
+            mPopup.setContentWidth(Utils.dp2px(context, POPUP_WIDTH_DP));
+            mPopup.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    mPopup.dismiss();
+                    View.OnClickListener listener = getListener(mCollapsedItems.get(position));
+                    if (null != listener) {
+                        listener.onClick(view);
+                    }
+                }
+            });
+        } else {
+            mAdapter.notifyDataSetChanged();
+        }
+        mPopup.show();
+    }
+
+    void dismiss() {
+        if (null != mPopup && mPopup.isShowing()) {
+            mPopup.dismiss();
+        }
+    }
+
+    private static View.OnClickListener getListener(ToolbarItem item) {
+        Options ops = item.getOptions();
+        if (ops instanceof TextViewOptions) {
+            return ((TextViewOptions) ops).listener;
+        } else if (ops instanceof ImageViewOptions) {
+            return ((ImageViewOptions) ops).listener;
+        }
+        return null;
+    }
+
+    /**
+     * Get the text of the row, null means the row shows the icon.
+     */
+    private static CharSequence getTitle(ToolbarItem item) {
+        Options ops = item.getOptions();
+        if (ops instanceof TextViewOptions) {
+            return ((TextViewOptions) ops).text;
+        } else if (ops instanceof ImageViewOptions) {
+            return ((ImageViewOptions) ops).overflowTitle;
+        }
+        return null;
+    }
+
+    private final class Adapter extends BaseAdapter {
+
+        private static final int TYPE_TEXT = 0;
+        private static final int TYPE_IMAGE = 1;
+
+        @Override
+        public int getCount() {
+            return mCollapsedItems.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mCollapsedItems.get(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return 2;
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            ToolbarItem item = mCollapsedItems.get(position);
+            return item.getOptions() instanceof ImageViewOptions && TextUtils.isEmpty(getTitle(item))
+                    ? TYPE_IMAGE : TYPE_TEXT;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            ToolbarItem item = mCollapsedItems.get(position);
+            Context context = parent.getContext();
+            if (TYPE_TEXT == getItemViewType(position)) {
+                TextView row = null == convertView ? createRow(new TextView(context)) : (TextView) convertView;
+                row.setGravity(Gravity.CENTER_VERTICAL);
+                row.setTextSize(TypedValue.COMPLEX_UNIT_SP, ROW_TEXT_SIZE_SP);
+                row.setText(getTitle(item));
+                return row;
+            } else {
+                ImageView row = null == convertView ? createRow(new ImageView(context)) : (ImageView) convertView;
+                row.setScaleType(ImageView.ScaleType.FIT_START);
+                ImageViewOptions ops = (ImageViewOptions) item.getOptions();
+                if (null != ops.uri) {
+                    IconLoader.getInstance().into(row, ops);
+                } else {
+                    IconLoader.getInstance().cancel(row);
+                    row.setImageDrawable(IconCache.getInstance().obtain(context, ops));
+                }
+                return row;
+            }
+        }
+
+        private <T extends View> T createRow(T row) {
+            Context context = row.getContext();
+            int padding = Utils.dp2px(context, ROW_PADDING_DP);
+            row.setPadding(padding, padding / 2, padding, padding / 2);
+            row.setLayoutParams(new AbsListView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    Utils.dp2px(context, ROW_HEIGHT_DP)));
+            return row;
+        }
+
+    }
+
+}
@@ -2,32 +2,48 @@ package com.sharry.lib.widget.toolbar;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.MutableContextWrapper;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
 import android.support.annotation.Dimension;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.graphics.ColorUtils;
+import android.support.v4.view.GravityCompat;
 import android.support.v4.view.ViewCompat;
+import android.support.v4.view.WindowInsetsCompat;
+import android.support.v4.widget.NestedScrollView;
 import android.support.v7.widget.Toolbar;
+import android.text.Spanned;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.Gravity;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.Window;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import com.sharry.toolbar.R;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import static android.support.annotation.Dimension.DP;
 import static android.support.annotation.Dimension.PX;
 import static android.support.annotation.Dimension.SP;
@@ -61,10 +77,16 @@ public class SToolbar extends Toolbar {
         return new Builder(contentView);
     }
 
+    /**
+     * Set the fetcher of the icon uri which scheme isn't file or content, such as http.
+     */
+    public static void setIconFetcher(@Nullable IconFetcher fetcher) {
+        IconLoader.getInstance().setFetcher(fetcher);
+    }
+
     /*
        Constants
      */
-    private static final int LOCKED_CHILDREN_COUNT = 3;
     private static final int DEFAULT_INTERVAL = 5;
 
     private final Rect mDividingLineRegion = new Rect();
@@ -87,15 +109,100 @@ public class SToolbar extends Toolbar {
     private int mTitleTextColor = TextViewOptions.DEFAULT_TEXT_COLOR;
     @ColorInt
     private int mMenuTextColor = TextViewOptions.DEFAULT_TEXT_COLOR;
+    private int mTitleGravity = Gravity.CENTER | Gravity.TOP;
+    private boolean mMenuDrawMode = false;
 
     /*
        Views.
+       All sub items are direct children of SToolbar or drawn by SToolbar directly,
+       these lists record the slot which they belong to.
      */
-    private LinearLayout mLeftMenuContainer;
-    private LinearLayout mCenterContainer;
-    private LinearLayout mRightMenuContainer;
+    private final List<ToolbarItem> mLeftMenuItems = new ArrayList<>();
+    private final List<ToolbarItem> mTitleItems = new ArrayList<>();
+    private final List<ToolbarItem> mRightMenuItems = new ArrayList<>();
     private TextView mTitleText;
     private ImageView mTitleImage;
+    private ToolbarItem mPressedItem;
+    /*
+       The items which have an id, see updateItem, removeItem and setItemVisible.
+     */
+    private final SparseArray<ToolbarItem> mItemRegistry = new SparseArray<>();
+    /*
+       The overflow menu of the right menu items, created when the first item collapsed.
+     */
+    private OverflowMenu mOverflowMenu;
+    private boolean mOverflowVisible = false;
+    /*
+       The spec applied last time, the next spec passed to update is diffed against it.
+     */
+    private ToolbarSpec mSpec;
+    private boolean mApplyingSpec;
+
+    /*
+       Batching state, see beginUpdate and endUpdate.
+     */
+    private int mUpdateDepth = 0;
+    private boolean mLayoutRequestedInUpdate = false;
+    private boolean mInvalidatedInUpdate = false;
+    private boolean mSystemUiChangedInUpdate = false;
+    private TextViewOptions mPendingTitleTextOps;
+    private ImageViewOptions mPendingTitleImageOps;
+    private CharSequence mPendingTitleText;
+    private boolean mHasPendingTitleTextColor = false;
+    @ColorInt
+    private int mPendingTitleTextColor;
+
+    /*
+       The origin content placed under this toolbar, its top margin follows the height of toolbar.
+     */
+    private View mContentView;
+    private int mContentOffset;
+
+    /*
+       The top inset of status bar cached per window, it is updated by every dispatched WindowInsets,
+       so the toolbar created later in the same window doesn't look up the resources again.
+     */
+    private static final Map<Window, Integer> sStatusBarInsets = new WeakHashMap<>();
+    private static final int UNKNOWN_INSET = -1;
+    private Style mStatusBarStyle = Style.DEFAULT;
+    private int mStatusBarInset = UNKNOWN_INSET;
+    private int mStatusBarPadding = 0;
+
+    /*
+       Collapse mode, the toolbar collapses by clip bounds, translation, alpha and draw-time colors,
+       the geometry is never changed while scrolling.
+     */
+    private final Rect mCollapseClipBounds = new Rect();
+    private int mCollapseRange = 0;
+    private int mCollapseOffset = 0;
+    private int mCollapseTranslation = 0;
+    private boolean mHasCollapseBackground = false;
+    @ColorInt
+    private int mExpandedBackgroundColor;
+    @ColorInt
+    private int mCollapsedBackgroundColor;
+    private boolean mHasCollapseStatusBar = false;
+    @ColorInt
+    private int mExpandedStatusBarColor;
+    @ColorInt
+    private int mCollapsedStatusBarColor;
+    private boolean mStatusBarColorPosted = false;
+    private final Runnable mStatusBarColorRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mStatusBarColorPosted = false;
+            AppBarHelper.with(getContext()).tintStatusBar(ColorUtils.blendARGB(mExpandedStatusBarColor,
+                    mCollapsedStatusBarColor, getCollapseFraction())).apply();
+        }
+    };
+
+    /*
+       Measured results of the slots, consumed in onLayout.
+     */
+    private int mRowHeight;
+    private int mLeftMenuWidth;
+    private int mTitleWidth;
+    private int mRightMenuWidth;
 
     public SToolbar(Context context) {
         this(context, null);
@@ -107,102 +214,321 @@ public class SToolbar extends Toolbar {
 
     public SToolbar(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        setWillNotDraw(false);
-        TypedArray array = context.obtainStyledAttributes(attrs, R.styleable.SToolbar);
-        // Initialize default arguments before views initialing.
-        initDefaultArgs(context, array);
-        // Initialize views.
-        initViews(context);
-        // Dividing line
-        setDividingLineColor(array.getColor(R.styleable.SToolbar_dividingLineColor, Color.LTGRAY));
-        setDividingLineHeight(Utils.px2dp(context, array.getDimensionPixelSize(R.styleable.SToolbar_dividingLineHeight, 0)));
-        // Set status bar style.
-        switch (array.getInt(R.styleable.SToolbar_statusBarStyle, Style.DEFAULT.getVal())) {
-            case 0:
-                setStatusBarStyle(Style.TRANSPARENT);
-                break;
-            case 1:
-                setStatusBarStyle(Style.TRANSLUCENCE);
-                break;
-            case 2:
-                setStatusBarStyle(Style.HIDE);
-                break;
-            default:
-                break;
+        long metricsToken = ToolbarMetrics.begin(ToolbarMetrics.EVENT_CONSTRUCT);
+        // Close the trace section even if the attributes are invalid.
+        try {
+            setWillNotDraw(false);
+            ViewCompat.setOnApplyWindowInsetsListener(this, new android.support.v4.view.OnApplyWindowInsetsListener() {
+                @Override
+                public WindowInsetsCompat onApplyWindowInsets(View v, WindowInsetsCompat insets) {
+                    onStatusBarInsetChanged(insets.getSystemWindowInsetTop());
+                    return insets;
+                }
+            });
+            TypedArray array = context.obtainStyledAttributes(attrs, R.styleable.SToolbar);
+            // Initialize default arguments before sub items adding.
+            initDefaultArgs(context, array);
+            mMenuDrawMode = array.getBoolean(R.styleable.SToolbar_menuDrawMode, false);
+            // Dividing line
+            setDividingLineColor(array.getColor(R.styleable.SToolbar_dividingLineColor, Color.LTGRAY));
+            setDividingLineHeight(Utils.px2dp(context, array.getDimensionPixelSize(R.styleable.SToolbar_dividingLineHeight, 0)));
+            // Set status bar style.
+            switch (array.getInt(R.styleable.SToolbar_statusBarStyle, Style.DEFAULT.getVal())) {
+                case 0:
+                    setStatusBarStyle(Style.TRANSPARENT);
+                    break;
+                case 1:
+                    setStatusBarStyle(Style.TRANSLUCENCE);
+                    break;
+                case 2:
+                    setStatusBarStyle(Style.HIDE);
+                    break;
+                default:
+                    break;
+            }
+            // Set title gravity.
+            switch (array.getInt(R.styleable.SToolbar_titleGravity, -1)) {
+                case 0:
+                    setTitleGravity(Gravity.LEFT | Gravity.TOP);
+                    break;
+                case 1:
+                    setTitleGravity(Gravity.RIGHT | Gravity.TOP);
+                    break;
+                default:
+                    setTitleGravity(Gravity.CENTER | Gravity.TOP);
+                    break;
+            }
+            // Add text title.
+            String titleText = array.getString(R.styleable.SToolbar_titleText);
+            // The title view is created only when there is a title text.
+            if (!TextUtils.isEmpty(titleText)) {
+                setTitleText(titleText, mTitleTextSize, mTitleTextColor);
+            }
+            // Add image title.
+            int titleImageResId = array.getResourceId(R.styleable.SToolbar_titleImage, View.NO_ID);
+            if (View.NO_ID != titleImageResId) {
+                setTitleImage(titleImageResId);
+            }
+            // Add left menu sub item.
+            int backIconResId = array.getResourceId(R.styleable.SToolbar_backIcon, View.NO_ID);
+            if (View.NO_ID != backIconResId) {
+                addBackIcon(backIconResId);
+            }
+            int leftMenuIconResId = array.getResourceId(R.styleable.SToolbar_menuLeftIcon, View.NO_ID);
+            if (View.NO_ID != leftMenuIconResId) {
+                addLeftMenuImage(ImageViewOptions.Builder().setDrawableResId(leftMenuIconResId).build());
+            }
+            String leftMenuText = array.getString(R.styleable.SToolbar_menuLeftText);
+            if (null != leftMenuText) {
+                addLeftMenuText(
+                        TextViewOptions.Builder()
+                                .setText(leftMenuText)
+                                .setTextSize(mMenuTextSize)
+                                .setTextColor(mMenuTextColor)
+                                .build()
+                );
+            }
+            // Add right menu sub item.
+            String rightMenuText = array.getString(R.styleable.SToolbar_menuRightText);
+            if (null != rightMenuText) {
+                addRightMenuText(
+                        TextViewOptions.Builder()
+                                .setText(rightMenuText)
+                                .setTextSize(mMenuTextSize)
+                                .setTextColor(mMenuTextColor)
+                                .build()
+                );
+            }
+            int rightMenuIconResId = array.getResourceId(R.styleable.SToolbar_menuRightIcon, View.NO_ID);
+            if (View.NO_ID != rightMenuIconResId) {
+                addRightMenuImage(ImageViewOptions.Builder().setDrawableResId(rightMenuIconResId).build());
+            }
+            array.recycle();
+        } finally {
+            ToolbarMetrics.end(this, ToolbarMetrics.EVENT_CONSTRUCT, metricsToken);
+        }
+    }
+
+    /**
+     * Measure left menu, right menu and title items in one pass, there is no intermediate container.
+     * <p>
+     * The row height is the max of minimum height and the tallest item, the items which height is
+     * MATCH_PARENT are measured with the row height, they will be measured again only when another
+     * item is taller than the minimum height.
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long metricsToken = ToolbarMetrics.begin(ToolbarMetrics.EVENT_MEASURE);
+        final int paddingHorizontal = getPaddingLeft() + getPaddingRight();
+        final int paddingVertical = getPaddingTop() + getPaddingBottom();
+        mRowHeight = mMinimumHeight;
+        int childState = 0;
+        // 1. Measure left menu items.
+        mLeftMenuWidth = 0;
+        for (ToolbarItem item : mLeftMenuItems) {
+            if (item.getVisibility() == GONE) {
+                continue;
+            }
+            mLeftMenuWidth += measureSubItem(item, widthMeasureSpec, paddingHorizontal + mLeftMenuWidth,
+                    heightMeasureSpec, paddingVertical);
+            childState = combineItemState(childState, item);
+        }
+        // 2. Measure right menu items.
+        mRightMenuWidth = 0;
+        for (ToolbarItem item : mRightMenuItems) {
+            item.overflowed = false;
+            if (item.getVisibility() == GONE) {
+                continue;
+            }
+            mRightMenuWidth += measureSubItem(item, widthMeasureSpec,
+                    paddingHorizontal + mLeftMenuWidth + mRightMenuWidth, heightMeasureSpec, paddingVertical);
+            childState = combineItemState(childState, item);
+        }
+        // 2.1 The menus are too wide, collapse the low priority right menu items into overflow menu.
+        mOverflowVisible = false;
+        if (MeasureSpec.UNSPECIFIED != MeasureSpec.getMode(widthMeasureSpec)) {
+            int available = MeasureSpec.getSize(widthMeasureSpec) - paddingHorizontal - mLeftMenuWidth
+                    - getTitleReservedWidth(MeasureSpec.getSize(widthMeasureSpec) - paddingHorizontal);
+            if (mRightMenuWidth > available
+                    && collapseRightMenuItems(available, widthMeasureSpec, heightMeasureSpec, paddingVertical)) {
+                // The remaining items may be squeezed before the room freed, measure them again.
+                int buttonWidth = mOverflowMenu.getButton().getOccupiedWidth();
+                mRightMenuWidth = 0;
+                for (ToolbarItem item : mRightMenuItems) {
+                    if (item.overflowed || item.getVisibility() == GONE) {
+                        continue;
+                    }
+                    mRightMenuWidth += measureSubItem(item, widthMeasureSpec,
+                            paddingHorizontal + mLeftMenuWidth + buttonWidth + mRightMenuWidth,
+                            heightMeasureSpec, paddingVertical);
+                    childState = combineItemState(childState, item);
+                }
+                mRightMenuWidth += buttonWidth;
+            }
+        }
+        // 3. Measure title items with the remaining width.
+        mTitleWidth = 0;
+        final int titleWidthUsed = paddingHorizontal + mLeftMenuWidth + mRightMenuWidth + mSubItemInterval * 2;
+        for (ToolbarItem item : mTitleItems) {
+            if (item.getVisibility() == GONE) {
+                continue;
+            }
+            mTitleWidth += measureSubItem(item, widthMeasureSpec, titleWidthUsed + mTitleWidth,
+                    heightMeasureSpec, paddingVertical);
+            childState = combineItemState(childState, item);
+        }
+        // 4. Some item taller than minimum height, stretch MATCH_PARENT items to the row height.
+        if (mRowHeight > mMinimumHeight) {
+            stretchSubItems(mLeftMenuItems);
+            stretchSubItems(mRightMenuItems);
+            stretchSubItems(mTitleItems);
         }
-        // Set title gravity.
-        switch (array.getInt(R.styleable.SToolbar_titleGravity, -1)) {
-            case 0:
-                setTitleGravity(Gravity.LEFT | Gravity.TOP);
+        int desiredWidth = paddingHorizontal + mLeftMenuWidth + mRightMenuWidth
+                + (mTitleWidth > 0 ? mTitleWidth + mSubItemInterval * 2 : 0);
+        setMeasuredDimension(
+                resolveSizeAndState(Math.max(desiredWidth, getSuggestedMinimumWidth()), widthMeasureSpec, childState),
+                resolveSizeAndState(paddingVertical + mRowHeight, heightMeasureSpec,
+                        childState << MEASURED_HEIGHT_STATE_SHIFT)
+        );
+        ToolbarMetrics.end(this, ToolbarMetrics.EVENT_MEASURE, metricsToken);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        long metricsToken = ToolbarMetrics.begin(ToolbarMetrics.EVENT_LAYOUT);
+        final int width = r - l;
+        final int rowTop = getPaddingTop();
+        // 1. Layout left menu items from the left edge.
+        final int leftMenuEnd = getPaddingLeft() + mLeftMenuWidth;
+        layoutSubItems(mLeftMenuItems, getPaddingLeft(), rowTop);
+        // 2. Layout right menu items against the right edge.
+        final int rightMenuStart = width - getPaddingRight() - mRightMenuWidth;
+        int rightMenuEnd = layoutSubItems(mRightMenuItems, rightMenuStart, rowTop);
+        if (mOverflowVisible) {
+            mOverflowMenu.getButton().layout(rightMenuEnd, rowTop, mRowHeight);
+        }
+        // 3. Layout title items associated with the title gravity.
+        final int titleMinLeft = leftMenuEnd + mSubItemInterval;
+        final int titleMaxLeft = rightMenuStart - mSubItemInterval - mTitleWidth;
+        int titleLeft;
+        switch (GravityCompat.getAbsoluteGravity(mTitleGravity, ViewCompat.getLayoutDirection(this))
+                & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.LEFT:
+                titleLeft = titleMinLeft;
                 break;
-            case 1:
-                setTitleGravity(Gravity.RIGHT | Gravity.TOP);
+            case Gravity.RIGHT:
+                titleLeft = titleMaxLeft;
                 break;
             default:
-                setTitleGravity(Gravity.CENTER | Gravity.TOP);
+                // Center in the whole toolbar, but never overlap the menus.
+                titleLeft = Math.max(titleMinLeft, Math.min(titleMaxLeft, (width - mTitleWidth) / 2));
                 break;
         }
-        // Add text title.
-        String titleText = array.getString(R.styleable.SToolbar_titleText);
-        setTitleText(TextUtils.isEmpty(titleText) ? "" : titleText, mTitleTextSize, mTitleTextColor);
-        // Add image title.
-        int titleImageResId = array.getResourceId(R.styleable.SToolbar_titleImage, View.NO_ID);
-        if (View.NO_ID != titleImageResId) {
-            setTitleImage(titleImageResId);
-        }
-        // Add left menu sub item.
-        int backIconResId = array.getResourceId(R.styleable.SToolbar_backIcon, View.NO_ID);
-        if (View.NO_ID != backIconResId) {
-            addBackIcon(backIconResId);
-        }
-        int leftMenuIconResId = array.getResourceId(R.styleable.SToolbar_menuLeftIcon, View.NO_ID);
-        if (View.NO_ID != leftMenuIconResId) {
-            addLeftMenuImage(ImageViewOptions.Builder().setDrawableResId(leftMenuIconResId).build());
-        }
-        String leftMenuText = array.getString(R.styleable.SToolbar_menuLeftText);
-        if (null != leftMenuText) {
-            addLeftMenuText(
-                    TextViewOptions.Builder()
-                            .setText(leftMenuText)
-                            .setTextSize(mMenuTextSize)
-                            .setTextColor(mMenuTextColor)
-                            .build()
-            );
-        }
-        // Add right menu sub item.
-        String rightMenuText = array.getString(R.styleable.SToolbar_menuRightText);
-        if (null != rightMenuText) {
-            addRightMenuText(
-                    TextViewOptions.Builder()
-                            .setText(rightMenuText)
-                            .setTextSize(mMenuTextSize)
-                            .setTextColor(mMenuTextColor)
-                            .build()
-            );
-        }
-        int rightMenuIconResId = array.getResourceId(R.styleable.SToolbar_menuRightIcon, View.NO_ID);
-        if (View.NO_ID != rightMenuIconResId) {
-            addRightMenuImage(ImageViewOptions.Builder().setDrawableResId(rightMenuIconResId).build());
-        }
-        array.recycle();
+        layoutSubItems(mTitleItems, titleLeft, rowTop);
+        ToolbarMetrics.end(this, ToolbarMetrics.EVENT_LAYOUT, metricsToken);
     }
 
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        mDividingLineRegion.left = getPaddingLeft();
-        mDividingLineRegion.right = getMeasuredWidth() - getPaddingRight();
-        mDividingLineRegion.bottom = getMeasuredHeight() - getPaddingBottom();
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateDividingLineRegion();
+        // Only relayout the content when the pre-measured height is out of date.
+        if (null != mContentView && GONE != getVisibility() && h != mContentOffset) {
+            offsetContentView(h);
+        }
+        if (mCollapseRange > 0) {
+            applyCollapseState();
+        }
+    }
+
+    /**
+     * The content under this toolbar moves up when the toolbar is gone, and back when it shows again.
+     */
+    @Override
+    public void setVisibility(int visibility) {
+        super.setVisibility(visibility);
+        if (null == mContentView) {
+            return;
+        }
+        int offset = GONE == visibility ? 0 : Math.max(getHeight(), getMeasuredHeight());
+        if (offset != mContentOffset) {
+            offsetContentView(offset);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long metricsToken = ToolbarMetrics.begin(ToolbarMetrics.EVENT_DRAW);
         super.onDraw(canvas);
+        // Draw the items which have no view, they follow the translation of collapse mode.
+        int saveCount = canvas.save();
+        canvas.translate(0, mCollapseTranslation);
+        drawSubItems(canvas, mLeftMenuItems);
+        drawSubItems(canvas, mTitleItems);
+        drawSubItems(canvas, mRightMenuItems);
+        if (mOverflowVisible) {
+            mOverflowMenu.getButton().draw(canvas);
+        }
+        canvas.restoreToCount(saveCount);
         if (mDividingLineHeight > 0) {
-            ViewCompat.setElevation(this, 0);
-            mDividingLineRegion.top = mDividingLineRegion.bottom - mDividingLineHeight;
+            // Keep the dividing line at the bottom of the visible area.
+            saveCount = canvas.save();
+            canvas.translate(0, -mCollapseOffset);
             canvas.drawRect(mDividingLineRegion, mDividingLinePaint);
+            canvas.restoreToCount(saveCount);
+        }
+        ToolbarMetrics.end(this, ToolbarMetrics.EVENT_DRAW, metricsToken);
+    }
+
+    /**
+     * The collapsed strip is clipped, let the touch events fall through to the content under it.
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (MotionEvent.ACTION_DOWN == ev.getActionMasked() && mCollapseOffset > 0
+                && ev.getY() >= getHeight() - mCollapseOffset) {
+            return false;
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
+    /**
+     * Hit test the drawn items, the views items receive their touch events by themselves.
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent ev) {
+        final int x = (int) ev.getX();
+        final int y = (int) ev.getY() - mCollapseTranslation;
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mPressedItem = findClickableDrawnItem(x, y);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (null != mPressedItem && !mPressedItem.bounds.contains(x, y)) {
+                    mPressedItem = null;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (null != mPressedItem && mPressedItem.bounds.contains(x, y)) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    mPressedItem.getListener().onClick(this);
+                }
+                mPressedItem = null;
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                mPressedItem = null;
+                break;
+            default:
+                break;
         }
+        return super.onTouchEvent(ev) || null != mPressedItem;
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return super.verifyDrawable(who) || isSubItemDrawable(mLeftMenuItems, who)
+                || isSubItemDrawable(mTitleItems, who) || isSubItemDrawable(mRightMenuItems, who)
+                || (null != mOverflowMenu && ((ImageItem) mOverflowMenu.getButton()).getDrawable() == who);
     }
 
     @Override
@@ -218,12 +544,39 @@ public class SToolbar extends Toolbar {
      * Set app bar style associated with this Activity.
      */
     public void setStatusBarStyle(Style style) {
-        AppBarHelper.with(getContext()).setStatusBarStyle(style).apply();
-        if (Utils.isLollipop() && (style == Style.TRANSPARENT || style == Style.TRANSLUCENCE)) {
-            // Setup padding.
-            setPadding(getPaddingLeft(), getPaddingTop() + Utils.getStatusBarHeight(getContext()),
-                    getPaddingRight(), getPaddingBottom());
+        // The window may be changed by other toolbars, AppBarHelper only writes the parts differ from the window.
+        AppBarHelper.with(getContext()).setStatusBarStyle(style);
+        applySystemUi();
+        if (mStatusBarStyle == style) {
+            return;
+        }
+        mStatusBarStyle = style;
+        if (UNKNOWN_INSET == mStatusBarInset) {
+            mStatusBarInset = getCachedStatusBarInset();
         }
+        applyStatusBarPadding();
+        // The toolbar may draw under status bar now, let the window dispatch the real insets.
+        ViewCompat.requestApplyInsets(this);
+    }
+
+    public Style getStatusBarStyle() {
+        return mStatusBarStyle;
+    }
+
+    /**
+     * Set navigation bar style associated with this Activity.
+     */
+    public void setNavigationBarStyle(Style style) {
+        AppBarHelper.with(getContext()).setNavigationBarStyle(style);
+        applySystemUi();
+    }
+
+    /**
+     * Hide status bar and navigation bar associated with this Activity, the immersive sticky mode.
+     */
+    public void setAllBarsHide() {
+        AppBarHelper.with(getContext()).setAllBarsHide();
+        applySystemUi();
     }
 
     /**
@@ -254,14 +607,54 @@ public class SToolbar extends Toolbar {
      * Set the color to dividing line.
      */
     public void setDividingLineColor(@ColorInt int color) {
+        if (mDividingLinePaint.getColor() == color) {
+            return;
+        }
         mDividingLinePaint.setColor(color);
+        invalidate();
     }
 
     /**
      * Set diving line height.
      */
     public void setDividingLineHeight(@Dimension(unit = DP) int dividingLineHeight) {
-        this.mDividingLineHeight = Utils.dp2px(getContext(), dividingLineHeight);
+        setDividingLinePixelHeight(Utils.dp2px(getContext(), dividingLineHeight));
+    }
+
+    void setDividingLinePixelHeight(@Dimension(unit = PX) int dividingLineHeight) {
+        if (mDividingLineHeight == dividingLineHeight) {
+            return;
+        }
+        this.mDividingLineHeight = dividingLineHeight;
+        if (mDividingLineHeight > 0) {
+            // The dividing line replaces the shadow.
+            ViewCompat.setElevation(this, 0);
+        }
+        updateDividingLineRegion();
+        invalidate();
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        // Invoked by the super constructor before the fields initialized.
+        if (null != mDividingLineRegion) {
+            updateDividingLineRegion();
+        }
+    }
+
+    /**
+     * Set the menu text and image items drawn by toolbar directly, instead of creating TextView and ImageView.
+     * <p>
+     * It only affect the items added after this invocation, and the click listener of a drawn item
+     * will receive this toolbar as the clicked view.
+     */
+    public void setMenuDrawMode(boolean menuDrawMode) {
+        mMenuDrawMode = menuDrawMode;
+    }
+
+    public boolean isMenuDrawMode() {
+        return mMenuDrawMode;
     }
 
     /**
@@ -270,9 +663,11 @@ public class SToolbar extends Toolbar {
      * @see Gravity
      */
     public void setTitleGravity(int gravity) {
-        LayoutParams params = (LayoutParams) mCenterContainer.getLayoutParams();
-        params.gravity = gravity;
-        mCenterContainer.setLayoutParams(params);
+        if (mTitleGravity == gravity) {
+            return;
+        }
+        mTitleGravity = gravity;
+        requestLayout();
     }
 
     /**
@@ -281,7 +676,7 @@ public class SToolbar extends Toolbar {
     public TextView getTitleText() {
         if (null == mTitleText) {
             mTitleText = createTextView();
-            addTitleView(mTitleText);
+            addSubItem(mTitleItems, new ToolbarItem.ViewItem(mTitleText, true));
         }
         return mTitleText;
     }
@@ -292,7 +687,7 @@ public class SToolbar extends Toolbar {
     public ImageView getTitleImage() {
         if (null == mTitleImage) {
             mTitleImage = createImageView();
-            addTitleView(mTitleImage);
+            addSubItem(mTitleItems, new ToolbarItem.ViewItem(mTitleImage, true));
         }
         return mTitleImage;
     }
@@ -323,6 +718,13 @@ public class SToolbar extends Toolbar {
     }
 
     public void setTitleText(@NonNull TextViewOptions ops) {
+        if (isUpdating()) {
+            // The options override the pending text and color.
+            mPendingTitleTextOps = ops;
+            mPendingTitleText = null;
+            mHasPendingTitleTextColor = false;
+            return;
+        }
         ops.newBuilder()
                 .setTextSize(TextViewOptions.UN_INITIALIZE_TEXT_SIZE != ops.textSize
                         ? ops.textSize : mTitleTextSize)
@@ -334,6 +736,46 @@ public class SToolbar extends Toolbar {
                 .completion(getTitleText());
     }
 
+    /**
+     * Update the text of title only, the other attributes of title keep unchanged.
+     * <p>
+     * It doesn't allocate any options, and does nothing if the text is same as before,
+     * so it is suitable for the title which changes frequently, such as count down or progress.
+     */
+    public void updateTitleText(@NonNull CharSequence text) {
+        if (isUpdating()) {
+            mPendingTitleText = text;
+            return;
+        }
+        if (null == mTitleText && TextUtils.isEmpty(text)) {
+            // Don't create the title view for nothing.
+            return;
+        }
+        TextView titleText = getTitleText();
+        // Drop the pending precomputed text first, otherwise it overrides the text compared below.
+        TextPrecomputer.getInstance().cancel(titleText);
+        // The spans are not compared, set the spanned text always.
+        CharSequence current = titleText.getText();
+        if (text instanceof Spanned || current instanceof Spanned || !TextUtils.equals(current, text)) {
+            TextPrecomputer.getInstance().setText(titleText, text);
+        }
+    }
+
+    /**
+     * Update the text color of title only, the other attributes of title keep unchanged.
+     */
+    public void updateTitleTextColor(@ColorInt int textColor) {
+        if (isUpdating()) {
+            mPendingTitleTextColor = textColor;
+            mHasPendingTitleTextColor = true;
+            return;
+        }
+        TextView titleText = getTitleText();
+        if (titleText.getCurrentTextColor() != textColor) {
+            titleText.setTextColor(textColor);
+        }
+    }
+
     /**
      * Set image associated with this toolbar title.
      */
@@ -353,6 +795,10 @@ public class SToolbar extends Toolbar {
     }
 
     public void setTitleImage(@NonNull ImageViewOptions ops) {
+        if (isUpdating()) {
+            mPendingTitleImageOps = ops;
+            return;
+        }
         ops.newBuilder()
                 .setPaddingLeft(ImageViewOptions.DEFAULT_PADDING != ops.paddingLeft
                         ? ops.paddingLeft : mSubItemInterval)
@@ -371,10 +817,7 @@ public class SToolbar extends Toolbar {
      * U can set view more easier when U use Options.
      */
     public void addTitleView(@NonNull View view, @Nullable Options ops) {
-        if (null != ops) {
-            ops.completion(view);
-        }
-        mCenterContainer.addView(view);
+        addSubItem(mTitleItems, createCustomItem(view, ops));
     }
 
     /**
@@ -387,8 +830,9 @@ public class SToolbar extends Toolbar {
                         .setListener(new OnClickListener() {
                             @Override
                             public void onClick(View v) {
-                                if (getContext() instanceof Activity) {
-                                    ((Activity) getContext()).onBackPressed();
+                                Activity activity = Utils.findActivity(getContext());
+                                if (null != activity) {
+                                    activity.onBackPressed();
                                 }
                             }
                         })
@@ -400,22 +844,14 @@ public class SToolbar extends Toolbar {
      * Add text sub item associated with this toolbar left menu.
      */
     public void addLeftMenuText(@NonNull TextViewOptions ops) {
-        addLeftMenuView(createTextView(), ops.newBuilder()
-                .setTextSize(TextViewOptions.UN_INITIALIZE_TEXT_SIZE != ops.textSize
-                        ? ops.textSize : mMenuTextSize)
-                .setPaddingLeft(TextViewOptions.DEFAULT_PADDING != ops.paddingLeft
-                        ? ops.paddingLeft : mSubItemInterval)
-                .build());
+        addSubItem(mLeftMenuItems, createMenuItem(resolveMenuTextOps(ops, true)));
     }
 
     /**
      * Add image sub item associated with this toolbar left menu.
      */
     public void addLeftMenuImage(@NonNull ImageViewOptions ops) {
-        addLeftMenuView(createImageView(), ops.newBuilder()
-                .setPaddingLeft(ImageViewOptions.DEFAULT_PADDING != ops.paddingLeft
-                        ? ops.paddingLeft : mSubItemInterval)
-                .build());
+        addSubItem(mLeftMenuItems, createMenuItem(resolveMenuImageOps(ops, true)));
     }
 
     /**
@@ -429,32 +865,21 @@ public class SToolbar extends Toolbar {
      * Add custom sub item associated with this toolbar left menu.
      */
     public void addLeftMenuView(@NonNull View view, @Nullable Options ops) {
-        if (null != ops) {
-            ops.completion(view);
-        }
-        mLeftMenuContainer.addView(view);
+        addSubItem(mLeftMenuItems, createCustomItem(view, ops));
     }
 
     /**
      * Add text sub item associated with this toolbar right menu.
      */
     public void addRightMenuText(@NonNull TextViewOptions ops) {
-        addRightMenuView(createTextView(), ops.newBuilder()
-                .setTextSize(TextViewOptions.UN_INITIALIZE_TEXT_SIZE != ops.textSize
-                        ? ops.textSize : mMenuTextSize)
-                .setPaddingRight(TextViewOptions.DEFAULT_PADDING != ops.paddingRight
-                        ? ops.paddingRight : mSubItemInterval)
-                .build());
+        addSubItem(mRightMenuItems, createMenuItem(resolveMenuTextOps(ops, false)));
     }
 
     /**
      * Add image sub item associated with this toolbar right menu.
      */
     public void addRightMenuImage(@NonNull ImageViewOptions ops) {
-        addRightMenuView(createImageView(), ops.newBuilder()
-                .setPaddingRight(ImageViewOptions.DEFAULT_PADDING != ops.paddingLeft
-                        ? ops.paddingLeft : mSubItemInterval)
-                .build());
+        addSubItem(mRightMenuItems, createMenuItem(resolveMenuImageOps(ops, false)));
     }
 
     /**
@@ -469,48 +894,423 @@ public class SToolbar extends Toolbar {
      * U can set view more easier when U use Options.
      */
     public void addRightMenuView(@NonNull View view, @Nullable Options ops) {
-        if (null != ops) {
-            ops.completion(view);
-        }
-        mRightMenuContainer.addView(view);
+        addSubItem(mRightMenuItems, createCustomItem(view, ops));
     }
 
     /**
-     * Get view index of left menu.
+     * Get view index of left menu, return null if the item at this index is drawn by toolbar.
      */
     public <T extends View> T getLeftMenuView(int index) {
-        return (T) mLeftMenuContainer.getChildAt(index);
+        return (T) getSubItemView(mLeftMenuItems, index);
     }
 
     /**
-     * Get view index of right menu.
+     * Get view index of right menu, return null if the item at this index is drawn by toolbar.
      */
     public <T extends View> T getRightMenuView(int index) {
-        return (T) mRightMenuContainer.getChildAt(index);
+        return (T) getSubItemView(mRightMenuItems, index);
+    }
+
+    /**
+     * Get view of the item with id, return null if the item is drawn by toolbar or absent.
+     */
+    public <T extends View> T getItemView(@IdRes int id) {
+        ToolbarItem item = mItemRegistry.get(id);
+        return null == item ? null : (T) item.getView();
+    }
+
+    /**
+     * Update the item with id in place, the item keeps its id and position.
+     * <p>
+     * The menu items created by toolbar reuse their view, the drawn items only redraw their bounds
+     * if the size doesn't change. The custom views are completed by the ops directly.
+     *
+     * @return false if the item is absent.
+     */
+    public boolean updateItem(@IdRes int id, @NonNull Options ops) {
+        ToolbarItem item = mItemRegistry.get(id);
+        if (null == item) {
+            return false;
+        }
+        List<ToolbarItem> slot = findSlot(item);
+        int index = slot.indexOf(item);
+        boolean isLeft = slot == mLeftMenuItems;
+        View view = item.getView();
+        if (item instanceof ToolbarItem.ViewItem && !((ToolbarItem.ViewItem) item).recyclable) {
+            ToolbarItem.ViewItem viewItem = (ToolbarItem.ViewItem) item;
+            updateView(view, viewItem.completedOps, ops);
+            viewItem.completedOps = ops;
+        } else if (ops instanceof TextViewOptions) {
+            TextViewOptions validOps = resolveMenuTextOps(((TextViewOptions) ops).newBuilder()
+                    .setId(id).build(), isLeft);
+            if (view instanceof TextView) {
+                rebindMenuView((ToolbarItem.ViewItem) item, validOps);
+            } else if (null == view) {
+                replaceDrawnItem(slot, index, new TextItem(getContext(), validOps));
+            } else {
+                removeSubItemAt(slot, index);
+                addSubItem(slot, index, createMenuItem(validOps));
+            }
+        } else if (ops instanceof ImageViewOptions) {
+            ImageViewOptions validOps = resolveMenuImageOps(((ImageViewOptions) ops).newBuilder()
+                    .setId(id).build(), isLeft);
+            if (view instanceof ImageView) {
+                rebindMenuView((ToolbarItem.ViewItem) item, validOps);
+            } else if (null == view) {
+                replaceDrawnItem(slot, index, new ImageItem(getContext(), validOps));
+            } else {
+                removeSubItemAt(slot, index);
+                addSubItem(slot, index, createMenuItem(validOps));
+            }
+        } else if (null != view) {
+            ops.completion(view);
+        } else {
+            throw new IllegalArgumentException("The item drawn by toolbar can't be updated by " + ops);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the item with id, the view created by toolbar is released to the shared pool.
+     *
+     * @return false if the item is absent.
+     */
+    public boolean removeItem(@IdRes int id) {
+        ToolbarItem item = mItemRegistry.get(id);
+        if (null == item) {
+            return false;
+        }
+        List<ToolbarItem> slot = findSlot(item);
+        removeSubItemAt(slot, slot.indexOf(item));
+        return true;
+    }
+
+    /**
+     * Show or hide the item with id, the hidden item doesn't occupy any space.
+     *
+     * @return false if the item is absent.
+     */
+    public boolean setItemVisible(@IdRes int id, boolean visible) {
+        ToolbarItem item = mItemRegistry.get(id);
+        if (null == item) {
+            return false;
+        }
+        int visibility = visible ? VISIBLE : GONE;
+        if (item.getVisibility() == visibility) {
+            return true;
+        }
+        item.setVisibility(visibility);
+        if (null == item.getView()) {
+            // The view item requests layout by itself.
+            requestLayout();
+            invalidate();
+        }
+        return true;
     }
 
     @Override
     public void addView(View child, int index, ViewGroup.LayoutParams params) {
-        if (LOCKED_CHILDREN_COUNT == getChildCount()) {
+        // Children are managed by the title and menu slots, ignore the views which added from outside,
+        // such as xml children or the system views of Toolbar.
+    }
+
+    /**
+     * Enable the collapse mode, the visible height of toolbar can shrink by the collapse range.
+     * <p>
+     * The toolbar is clipped instead of relayout, so it should be placed over the scrolling content,
+     * and the content should reserve the height of toolbar as its top padding.
+     *
+     * @param collapseRange the max collapse distance in pixels, 0 means disable the collapse mode.
+     */
+    public void setCollapseRange(@Dimension(unit = PX) int collapseRange) {
+        mCollapseRange = Math.max(0, collapseRange);
+        mCollapseOffset = Math.min(mCollapseOffset, mCollapseRange);
+        if (0 == mCollapseRange) {
+            // Restore the draw properties of the item views.
+            resetSubItems(mLeftMenuItems);
+            resetSubItems(mTitleItems);
+            resetSubItems(mRightMenuItems);
+        }
+        applyCollapseState();
+    }
+
+    /**
+     * Set the background colors of expanded and collapsed states, the background color is blended
+     * between them while collapsing.
+     */
+    public void setCollapseBackgroundColors(@ColorInt int expandedColor, @ColorInt int collapsedColor) {
+        mHasCollapseBackground = true;
+        mExpandedBackgroundColor = expandedColor;
+        mCollapsedBackgroundColor = collapsedColor;
+        applyCollapseState();
+    }
+
+    /**
+     * Set the status bar colors of expanded and collapsed states, the status bar color is blended
+     * between them while collapsing, and updated once per frame at most.
+     */
+    public void setCollapseStatusBarColors(@ColorInt int expandedColor, @ColorInt int collapsedColor) {
+        mHasCollapseStatusBar = true;
+        mExpandedStatusBarColor = expandedColor;
+        mCollapsedStatusBarColor = collapsedColor;
+        applyCollapseState();
+    }
+
+    /**
+     * Set the collapsed distance, it is clamped to the collapse range.
+     * <p>
+     * Invoke it with {@code RecyclerView#computeVerticalScrollOffset()} in the scroll listener
+     * of RecyclerView, or use {@link #bindScrollView(NestedScrollView)}.
+     */
+    public void setCollapseOffset(@Dimension(unit = PX) int collapseOffset) {
+        int offset = Math.max(0, Math.min(collapseOffset, mCollapseRange));
+        if (mCollapseOffset == offset) {
+            return;
+        }
+        mCollapseOffset = offset;
+        applyCollapseState();
+    }
+
+    /**
+     * Get the collapsed fraction, 0 means expanded and 1 means fully collapsed.
+     */
+    public float getCollapseFraction() {
+        return mCollapseRange == 0 ? 0f : mCollapseOffset / (float) mCollapseRange;
+    }
+
+    /**
+     * Collapse this toolbar following the scroll of the scroll view.
+     * <p>
+     * It replaces the scroll change listener of the scroll view, use
+     * {@link #bindScrollView(NestedScrollView, NestedScrollView.OnScrollChangeListener)} to keep yours.
+     */
+    public void bindScrollView(@NonNull NestedScrollView scrollView) {
+        bindScrollView(scrollView, null);
+    }
+
+    /**
+     * Collapse this toolbar following the scroll of the scroll view, and then dispatch the scroll
+     * change to the listener.
+     */
+    public void bindScrollView(@NonNull NestedScrollView scrollView,
+                               @Nullable final NestedScrollView.OnScrollChangeListener listener) {
+        scrollView.setOnScrollChangeListener(new NestedScrollView.OnScrollChangeListener() {
+            @Override
+            public void onScrollChange(NestedScrollView v, int scrollX, int scrollY,
+                                       int oldScrollX, int oldScrollY) {
+                setCollapseOffset(scrollY);
+                if (null != listener) {
+                    listener.onScrollChange(v, scrollX, scrollY, oldScrollX, oldScrollY);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reconfigure this toolbar with a new spec, only the parts which differ from the spec applied
+     * last time are touched.
+     * <p>
+     * The menu items are matched by position, an item with the same options is kept as it is,
+     * and an item with the same type reuses its view. The toolbar only relayout when the geometry
+     * actually changes. The items added from XML or by the add methods are kept as they are.
+     */
+    public void update(@NonNull ToolbarSpec spec) {
+        if (spec == mSpec) {
             return;
         }
-        super.addView(child, index, params);
+        if (null == mSpec) {
+            spec.applyTo(this);
+            return;
+        }
+        ToolbarSpec old = mSpec;
+        beginUpdate();
+        mApplyingSpec = true;
+        // 1. Update arguments, the setters do nothing when the value is unchanged.
+        boolean rebuildMenus = old.menuDrawMode != spec.menuDrawMode
+                || old.subItemInterval != spec.subItemInterval;
+        if (ToolbarSpec.INVALIDATE != spec.minimumHeight) {
+            setMinimumHeight(spec.minimumHeight);
+        }
+        if (ToolbarSpec.INVALIDATE != spec.subItemInterval) {
+            setSubItemInterval(spec.subItemInterval);
+        }
+        if (old.backgroundColor != spec.backgroundColor
+                || old.backgroundDrawableResId != spec.backgroundDrawableResId) {
+            setBackgroundColor(spec.backgroundColor);
+            if (ToolbarSpec.INVALIDATE != spec.backgroundDrawableResId) {
+                setBackgroundDrawableRes(spec.backgroundDrawableResId);
+            }
+        }
+        setDividingLineColor(spec.dividingLineColor);
+        setDividingLinePixelHeight(spec.dividingLineHeight);
+        setTitleGravity(spec.titleGravity);
+        setMenuDrawMode(spec.menuDrawMode);
+        // 2. Update title items.
+        if (!isSameOptions(old.titleTextOps, spec.titleTextOps)) {
+            if (null == spec.titleTextOps) {
+                mPendingTitleTextOps = null;
+                removeSubItemView(mTitleItems, mTitleText);
+                mTitleText = null;
+            } else {
+                setTitleText(spec.titleTextOps);
+            }
+        }
+        if (!isSameOptions(old.titleImageOps, spec.titleImageOps)) {
+            if (null == spec.titleImageOps) {
+                mPendingTitleImageOps = null;
+                removeSubItemView(mTitleItems, mTitleImage);
+                mTitleImage = null;
+            } else {
+                setTitleImage(spec.titleImageOps);
+            }
+        }
+        if (!isSameItems(old.titleItems, spec.titleItems)) {
+            for (ToolbarSpec.Item item : old.titleItems) {
+                removeSubItemView(mTitleItems, item.view);
+            }
+            for (ToolbarSpec.Item item : spec.titleItems) {
+                addTitleView(item.view, item.ops);
+            }
+        }
+        // 3. Update menu items.
+        updateMenuItems(mLeftMenuItems, old.leftMenuItems, spec.leftMenuItems, true, rebuildMenus);
+        updateMenuItems(mRightMenuItems, old.rightMenuItems, spec.rightMenuItems, false, rebuildMenus);
+        if (old.statusBarStyle != spec.statusBarStyle) {
+            setStatusBarStyle(spec.statusBarStyle);
+        }
+        mApplyingSpec = false;
+        mSpec = spec;
+        endUpdate();
+    }
+
+    /**
+     * Begin a batch of mutations, the layout requests are collected, the title and system ui changes
+     * are deferred until the matched {@link #endUpdate()}, so a burst of setters costs one layout pass,
+     * and only the last value of title takes effect.
+     * <p>
+     * The calls can be nested, and {@link #getTitleText()} doesn't reflect the deferred changes
+     * before the batch ended.
+     */
+    public void beginUpdate() {
+        mUpdateDepth++;
+    }
+
+    /**
+     * End a batch of mutations, the collected changes are applied when the outermost batch ended.
+     */
+    public void endUpdate() {
+        if (mUpdateDepth == 0) {
+            throw new IllegalStateException("endUpdate() invoked without beginUpdate().");
+        }
+        if (--mUpdateDepth > 0) {
+            return;
+        }
+        applyPendingTitle();
+        if (mSystemUiChangedInUpdate) {
+            mSystemUiChangedInUpdate = false;
+            AppBarHelper.with(getContext()).apply();
+        }
+        if (mLayoutRequestedInUpdate) {
+            mLayoutRequestedInUpdate = false;
+            super.requestLayout();
+        }
+        if (mInvalidatedInUpdate) {
+            mInvalidatedInUpdate = false;
+            super.invalidate();
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        if (isUpdating()) {
+            mLayoutRequestedInUpdate = true;
+            return;
+        }
+        ToolbarMetrics.onRequestLayout(this);
+        super.requestLayout();
+    }
+
+    @Override
+    public void invalidate() {
+        if (isUpdating()) {
+            mInvalidatedInUpdate = true;
+            return;
+        }
+        super.invalidate();
+    }
+
+    /**
+     * Remove all sub items, the menu views created by this toolbar are released to the shared pool,
+     * so the next toolbar can reuse them.
+     * <p>
+     * It is invoked automatically when the toolbar detached from a finishing or reconfiguring activity.
+     */
+    public void recycle() {
+        recycleSubItems(mLeftMenuItems);
+        recycleSubItems(mTitleItems);
+        recycleSubItems(mRightMenuItems);
+        mTitleText = null;
+        mTitleImage = null;
+        mPressedItem = null;
+        mSpec = null;
+        mPendingTitleTextOps = null;
+        mPendingTitleImageOps = null;
+        mPendingTitleText = null;
+        mHasPendingTitleTextColor = false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (null != mOverflowMenu) {
+            mOverflowMenu.dismiss();
+        }
+        Activity activity = Utils.findActivity(getContext());
+        if (null != activity && (activity.isFinishing() || activity.isChangingConfigurations())) {
+            recycle();
+        }
     }
 
     @Override
     public void setMinimumHeight(int minimumHeight) {
+        if (mMinimumHeight == minimumHeight) {
+            return;
+        }
         mMinimumHeight = minimumHeight;
-        // Reset container minimumHeight
-        mLeftMenuContainer.setMinimumHeight(mMinimumHeight);
-        mRightMenuContainer.setMinimumHeight(mMinimumHeight);
-        mCenterContainer.setMinimumHeight(mMinimumHeight);
+        requestLayout();
+    }
+
+    /**
+     * Place the origin content under this toolbar.
+     * <p>
+     * The toolbar is pre-measured with the width of parent, so the content get a valid top margin
+     * before the first traversal, and the parent can be any ViewGroup with MarginLayoutParams.
+     */
+    void bindContentView(@NonNull View contentView) {
+        if (!(contentView.getLayoutParams() instanceof MarginLayoutParams)) {
+            throw new IllegalArgumentException("Please ensure the layout params of content view instanceof " +
+                    "MarginLayoutParams, now is: " + contentView.getLayoutParams());
+        }
+        mContentView = contentView;
+        View parent = (View) getParent();
+        int parentWidth = null != parent && parent.getWidth() > 0 ? parent.getWidth()
+                : getResources().getDisplayMetrics().widthPixels;
+        measure(
+                MeasureSpec.makeMeasureSpec(parentWidth, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED)
+        );
+        offsetContentView(getMeasuredHeight());
     }
 
     /**
      * Set item horizontal interval associated with this toolbar.
      */
     void setSubItemInterval(int subItemInterval) {
+        if (mSubItemInterval == subItemInterval) {
+            return;
+        }
         mSubItemInterval = subItemInterval;
+        requestLayout();
     }
 
     private void initDefaultArgs(Context context, TypedArray array) {
@@ -525,46 +1325,703 @@ public class SToolbar extends Toolbar {
         mMenuTextColor = array.getColor(R.styleable.SToolbar_menuTextColor, mMenuTextColor);
     }
 
-    private void initViews(Context context) {
-        // Set initialize layout params.
-        removeAllViews();
-        // 1. Add left menu container associated with this toolbar.
-        mLeftMenuContainer = new LinearLayout(context);
-        LayoutParams leftParams = new LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
-                ViewGroup.LayoutParams.WRAP_CONTENT);
-        leftParams.gravity = Gravity.START | Gravity.TOP;
-        mLeftMenuContainer.setLayoutParams(leftParams);
-        mLeftMenuContainer.setMinimumHeight(mMinimumHeight);
-        mLeftMenuContainer.setGravity(Gravity.CENTER_VERTICAL);
-        addView(mLeftMenuContainer);
-        // 2. Add right menu container associated with this toolbar.
-        mRightMenuContainer = new LinearLayout(context);
-        LayoutParams rightParams = new LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
-                ViewGroup.LayoutParams.WRAP_CONTENT);
-        rightParams.gravity = Gravity.END | Gravity.TOP;
-        mRightMenuContainer.setLayoutParams(rightParams);
-        mRightMenuContainer.setMinimumHeight(mMinimumHeight);
-        mRightMenuContainer.setGravity(Gravity.CENTER_VERTICAL);
-        addView(mRightMenuContainer);
-        // 3. Add center item container associated with this toolbar.
-        mCenterContainer = new LinearLayout(context);
-        LayoutParams centerParams = new LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
-                ViewGroup.LayoutParams.WRAP_CONTENT);
-        centerParams.gravity = Gravity.CENTER | Gravity.TOP;
-        mCenterContainer.setMinimumHeight(mMinimumHeight);
-        mCenterContainer.setPadding(mSubItemInterval, 0, mSubItemInterval, 0);
-        mCenterContainer.setLayoutParams(centerParams);
-        mCenterContainer.setGravity(Gravity.CENTER_VERTICAL);
-        addView(mCenterContainer);
+    /**
+     * Add sub item to the special slot, the view of item become a direct child of this toolbar.
+     */
+    private void addSubItem(List<ToolbarItem> slot, ToolbarItem item) {
+        addSubItem(slot, slot.size(), item);
+    }
+
+    private void addSubItem(List<ToolbarItem> slot, int index, ToolbarItem item) {
+        item.fromSpec = mApplyingSpec;
+        slot.add(index, item);
+        item.onAttach(this);
+        registerItem(item);
+        View view = item.getView();
+        if (null == view) {
+            // The drawn item has no view, request layout by ourselves.
+            requestLayout();
+            invalidate();
+            return;
+        }
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (null == params) {
+            params = generateDefaultLayoutParams();
+        }
+        // Invoke super directly, because the overridden addView ignores external views.
+        super.addView(view, -1, params);
+    }
+
+    private void offsetContentView(int toolbarHeight) {
+        MarginLayoutParams params = (MarginLayoutParams) mContentView.getLayoutParams();
+        params.topMargin += toolbarHeight - mContentOffset;
+        mContentOffset = toolbarHeight;
+        mContentView.setLayoutParams(params);
+    }
+
+    /**
+     * Compute the geometry of dividing line, it changes only when the size, padding or line height changed.
+     */
+    private void updateDividingLineRegion() {
+        mDividingLineRegion.set(getPaddingLeft(), getHeight() - getPaddingBottom() - mDividingLineHeight,
+                getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+    }
+
+    /**
+     * Apply the collapse state with the precomputed range and colors, it only changes the draw
+     * properties, never request layout.
+     */
+    private void applyCollapseState() {
+        float fraction = getCollapseFraction();
+        // Keep the items in the center of the visible area.
+        mCollapseTranslation = -mCollapseOffset / 2;
+        translateSubItems(mLeftMenuItems, 1f);
+        translateSubItems(mTitleItems, 1f - fraction);
+        translateSubItems(mRightMenuItems, 1f);
+        if (mCollapseOffset > 0) {
+            mCollapseClipBounds.set(0, 0, getWidth(), getHeight() - mCollapseOffset);
+            ViewCompat.setClipBounds(this, mCollapseClipBounds);
+        } else {
+            ViewCompat.setClipBounds(this, null);
+        }
+        if (mHasCollapseBackground) {
+            // The color of the existing ColorDrawable is changed in place, no layout happens.
+            setBackgroundColor(ColorUtils.blendARGB(mExpandedBackgroundColor,
+                    mCollapsedBackgroundColor, fraction));
+        }
+        if (mHasCollapseStatusBar && !mStatusBarColorPosted) {
+            mStatusBarColorPosted = true;
+            ViewCompat.postOnAnimation(this, mStatusBarColorRunnable);
+        }
+        invalidate();
+    }
+
+    private void translateSubItems(List<ToolbarItem> slot, float alpha) {
+        for (ToolbarItem item : slot) {
+            View view = item.getView();
+            if (null != view) {
+                view.setTranslationY(mCollapseTranslation);
+                view.setAlpha(alpha);
+            }
+        }
+    }
+
+    private void resetSubItems(List<ToolbarItem> slot) {
+        for (ToolbarItem item : slot) {
+            View view = item.getView();
+            if (null != view) {
+                view.setAlpha(1f);
+                view.setTranslationX(0);
+                view.setTranslationY(0);
+            }
+        }
+    }
+
+    /**
+     * Write the system ui changes to window, it is deferred to the end of batch when updating.
+     */
+    private void applySystemUi() {
+        if (isUpdating()) {
+            mSystemUiChangedInUpdate = true;
+        } else {
+            AppBarHelper.with(getContext()).apply();
+        }
+    }
+
+    private void onStatusBarInsetChanged(int inset) {
+        Window window = getWindow();
+        if (null != window) {
+            sStatusBarInsets.put(window, inset);
+        }
+        // The inset is consumed by window unless the toolbar draws under status bar, keep the cached one then.
+        if (isDrawUnderStatusBar() || UNKNOWN_INSET == mStatusBarInset) {
+            mStatusBarInset = inset;
+        }
+        applyStatusBarPadding();
+    }
+
+    /**
+     * Get the status bar inset before the window dispatched, it is resolved once per window.
+     */
+    private int getCachedStatusBarInset() {
+        Window window = getWindow();
+        Integer inset = null == window ? null : sStatusBarInsets.get(window);
+        if (null == inset || inset <= 0) {
+            inset = Utils.getStatusBarHeight(getContext());
+            if (null != window) {
+                sStatusBarInsets.put(window, inset);
+            }
+        }
+        return inset;
+    }
+
+    /**
+     * Apply the top padding of status bar, it only changes the padding when the value differs.
+     */
+    private void applyStatusBarPadding() {
+        int padding = isDrawUnderStatusBar() ? Math.max(0, mStatusBarInset) : 0;
+        if (padding == mStatusBarPadding) {
+            return;
+        }
+        setPadding(getPaddingLeft(), getPaddingTop() - mStatusBarPadding + padding,
+                getPaddingRight(), getPaddingBottom());
+        mStatusBarPadding = padding;
+    }
+
+    private boolean isDrawUnderStatusBar() {
+        return Utils.isLollipop()
+                && (Style.TRANSPARENT == mStatusBarStyle || Style.TRANSLUCENCE == mStatusBarStyle);
+    }
+
+    @Nullable
+    private Window getWindow() {
+        Activity activity = Utils.findActivity(getContext());
+        return null == activity ? null : activity.getWindow();
+    }
+
+    private boolean isUpdating() {
+        return mUpdateDepth > 0;
+    }
+
+    /**
+     * Apply the last title values which deferred in the batch.
+     */
+    private void applyPendingTitle() {
+        if (null != mPendingTitleTextOps) {
+            TextViewOptions ops = mPendingTitleTextOps;
+            mPendingTitleTextOps = null;
+            setTitleText(ops);
+        }
+        if (null != mPendingTitleText) {
+            CharSequence text = mPendingTitleText;
+            mPendingTitleText = null;
+            updateTitleText(text);
+        }
+        if (mHasPendingTitleTextColor) {
+            mHasPendingTitleTextColor = false;
+            updateTitleTextColor(mPendingTitleTextColor);
+        }
+        if (null != mPendingTitleImageOps) {
+            ImageViewOptions ops = mPendingTitleImageOps;
+            mPendingTitleImageOps = null;
+            setTitleImage(ops);
+        }
+    }
+
+    /**
+     * Switch the toolbar built off the main thread and its item views to the base context.
+     */
+    void rebaseContext(@NonNull Context base) {
+        ((MutableContextWrapper) getContext()).setBaseContext(base);
+        for (int i = 0; i < getChildCount(); i++) {
+            Context context = getChildAt(i).getContext();
+            if (context instanceof MutableContextWrapper) {
+                ((MutableContextWrapper) context).setBaseContext(base);
+            }
+        }
+    }
+
+    /**
+     * Mark the items added since now as created by spec.
+     */
+    void onSpecApplying() {
+        mApplyingSpec = true;
+    }
+
+    /**
+     * Record the spec which has been applied to this toolbar.
+     */
+    void onSpecApplied(@NonNull ToolbarSpec spec) {
+        mApplyingSpec = false;
+        mSpec = spec;
+    }
+
+    /**
+     * Fill the default text size and padding of the menu text options.
+     */
+    private TextViewOptions resolveMenuTextOps(TextViewOptions ops, boolean isLeft) {
+        TextViewOptions.Builder builder = ops.newBuilder()
+                .setTextSize(TextViewOptions.UN_INITIALIZE_TEXT_SIZE != ops.textSize
+                        ? ops.textSize : mMenuTextSize);
+        if (isLeft) {
+            builder.setPaddingLeft(TextViewOptions.DEFAULT_PADDING != ops.paddingLeft
+                    ? ops.paddingLeft : mSubItemInterval);
+        } else {
+            builder.setPaddingRight(TextViewOptions.DEFAULT_PADDING != ops.paddingRight
+                    ? ops.paddingRight : mSubItemInterval);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fill the default padding of the menu image options.
+     */
+    private ImageViewOptions resolveMenuImageOps(ImageViewOptions ops, boolean isLeft) {
+        ImageViewOptions.Builder builder = ops.newBuilder();
+        if (isLeft) {
+            builder.setPaddingLeft(ImageViewOptions.DEFAULT_PADDING != ops.paddingLeft
+                    ? ops.paddingLeft : mSubItemInterval);
+        } else {
+            builder.setPaddingRight(ImageViewOptions.DEFAULT_PADDING != ops.paddingRight
+                    ? ops.paddingRight : mSubItemInterval);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create the menu item associated with the draw mode, the view created here can be released to the pool.
+     */
+    private ToolbarItem createMenuItem(TextViewOptions validOps) {
+        if (mMenuDrawMode) {
+            return new TextItem(getContext(), validOps);
+        }
+        TextView textView = createTextView();
+        validOps.completion(textView);
+        return new ToolbarItem.ViewItem(textView, true, validOps);
+    }
+
+    private ToolbarItem createMenuItem(ImageViewOptions validOps) {
+        if (mMenuDrawMode) {
+            return new ImageItem(getContext(), validOps);
+        }
+        ImageView imageView = createImageView();
+        validOps.completion(imageView);
+        return new ToolbarItem.ViewItem(imageView, true, validOps);
+    }
+
+    private ToolbarItem createMenuItem(ToolbarSpec.Item item, boolean isLeft) {
+        switch (item.type) {
+            case ToolbarSpec.Item.TYPE_TEXT:
+                return createMenuItem(resolveMenuTextOps((TextViewOptions) item.ops, isLeft));
+            case ToolbarSpec.Item.TYPE_IMAGE:
+                return createMenuItem(resolveMenuImageOps((ImageViewOptions) item.ops, isLeft));
+            default:
+                return createCustomItem(item.view, item.ops);
+        }
+    }
+
+    private ToolbarItem createCustomItem(View view, @Nullable Options ops) {
+        if (null != ops) {
+            ops.completion(view);
+        }
+        ToolbarItem.ViewItem item = new ToolbarItem.ViewItem(view);
+        item.completedOps = ops;
+        return item;
+    }
+
+    /**
+     * Diff the menu items by position, and touch the changed items only.
+     */
+    private void updateMenuItems(List<ToolbarItem> slot, List<ToolbarSpec.Item> oldItems,
+                                 List<ToolbarSpec.Item> newItems, boolean isLeft, boolean rebuild) {
+        // Only the items created by spec are matched, the others are kept at their positions.
+        List<ToolbarItem> specItems = new ArrayList<>(oldItems.size());
+        int insertIndex = slot.size();
+        for (int i = 0; i < slot.size(); i++) {
+            if (slot.get(i).fromSpec) {
+                insertIndex = Math.min(insertIndex, i);
+                specItems.add(slot.get(i));
+            }
+        }
+        if (rebuild || specItems.size() != oldItems.size()) {
+            // The spec items have been changed outside the spec, can't match by position.
+            for (ToolbarItem item : specItems) {
+                removeSubItemAt(slot, slot.indexOf(item));
+            }
+            for (ToolbarSpec.Item item : newItems) {
+                addSubItem(slot, insertIndex++, createMenuItem(item, isLeft));
+            }
+            return;
+        }
+        int commonCount = Math.min(oldItems.size(), newItems.size());
+        for (int i = 0; i < commonCount; i++) {
+            ToolbarSpec.Item oldItem = oldItems.get(i);
+            ToolbarSpec.Item newItem = newItems.get(i);
+            ToolbarItem current = specItems.get(i);
+            int index = slot.indexOf(current);
+            insertIndex = index + 1;
+            if (oldItem.view == newItem.view && isSameOptions(oldItem.ops, newItem.ops)) {
+                continue;
+            }
+            if (oldItem.type == newItem.type && current instanceof ToolbarItem.ViewItem
+                    && ((ToolbarItem.ViewItem) current).recyclable) {
+                // Reuse the view created by toolbar.
+                rebindMenuView((ToolbarItem.ViewItem) current, ToolbarSpec.Item.TYPE_TEXT == newItem.type
+                        ? resolveMenuTextOps((TextViewOptions) newItem.ops, isLeft)
+                        : resolveMenuImageOps((ImageViewOptions) newItem.ops, isLeft));
+                continue;
+            }
+            removeSubItemAt(slot, index);
+            addSubItem(slot, index, createMenuItem(newItem, isLeft));
+        }
+        for (int i = oldItems.size() - 1; i >= commonCount; i--) {
+            removeSubItemAt(slot, slot.indexOf(specItems.get(i)));
+        }
+        for (int i = commonCount; i < newItems.size(); i++) {
+            addSubItem(slot, insertIndex++, createMenuItem(newItems.get(i), isLeft));
+        }
+    }
+
+    private boolean isSameItems(List<ToolbarSpec.Item> oldItems, List<ToolbarSpec.Item> newItems) {
+        if (oldItems.size() != newItems.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldItems.size(); i++) {
+            if (oldItems.get(i).view != newItems.get(i).view
+                    || !isSameOptions(oldItems.get(i).ops, newItems.get(i).ops)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSameOptions(@Nullable Options oldOps, @Nullable Options newOps) {
+        return oldOps == newOps || (null != oldOps && oldOps.equals(newOps));
+    }
+
+    private void removeSubItemView(List<ToolbarItem> slot, @Nullable View view) {
+        if (null == view) {
+            return;
+        }
+        for (int i = 0; i < slot.size(); i++) {
+            if (slot.get(i).getView() == view) {
+                removeSubItemAt(slot, i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove the sub item at index, the view created by toolbar is released to the pool.
+     */
+    private void removeSubItemAt(List<ToolbarItem> slot, int index) {
+        ToolbarItem item = slot.remove(index);
+        unregisterItem(item);
+        item.onDetach(this);
+        if (mPressedItem == item) {
+            mPressedItem = null;
+        }
+        View view = item.getView();
+        if (null == view) {
+            requestLayout();
+            invalidate();
+            return;
+        }
+        removeView(view);
+        if (((ToolbarItem.ViewItem) item).recyclable) {
+            ItemViewPool.getInstance().release(view);
+        }
+    }
+
+    /**
+     * Complete the menu view created by toolbar with new options, the view requests layout by itself
+     * only if its content changes.
+     */
+    private void rebindMenuView(ToolbarItem.ViewItem item, Options validOps) {
+        unregisterItem(item);
+        updateView(item.view, item.ops, validOps);
+        item.ops = validOps;
+        registerItem(item);
+    }
+
+    /**
+     * Apply the options to the view completed by the old options, only the changed attributes are
+     * touched, so the view won't request layout if its size is unchanged.
+     */
+    @SuppressWarnings("unchecked")
+    private void updateView(View view, @Nullable Options oldOps, Options newOps) {
+        if (newOps instanceof TextViewOptions && oldOps instanceof TextViewOptions && view instanceof TextView) {
+            ((TextViewOptions) newOps).update((TextView) view, (TextViewOptions) oldOps);
+        } else if (newOps instanceof ImageViewOptions && oldOps instanceof ImageViewOptions
+                && view instanceof ImageView) {
+            ((ImageViewOptions) newOps).update((ImageView) view, (ImageViewOptions) oldOps);
+        } else if (newOps instanceof ViewOptions && oldOps instanceof ViewOptions) {
+            ((ViewOptions) newOps).update(view, (ViewOptions) oldOps);
+        } else {
+            if (null != oldOps) {
+                // Drop the listener of old options, the new options may have none.
+                Utils.setOnClickListener(view, null);
+            }
+            newOps.completion(view);
+        }
+    }
+
+    /**
+     * Replace the drawn item at index, if the new item has the same size, it is laid out at the
+     * bounds of old item and only the bounds are redrawn, otherwise the toolbar is laid out again.
+     */
+    private void replaceDrawnItem(List<ToolbarItem> slot, int index, ToolbarItem newItem) {
+        ToolbarItem oldItem = slot.get(index);
+        newItem.visibility = oldItem.visibility;
+        newItem.overflowed = oldItem.overflowed;
+        newItem.fromSpec = oldItem.fromSpec;
+        boolean sameSize = layoutInPlace(oldItem, newItem);
+        unregisterItem(oldItem);
+        oldItem.onDetach(this);
+        if (mPressedItem == oldItem) {
+            mPressedItem = null;
+        }
+        slot.set(index, newItem);
+        newItem.onAttach(this);
+        registerItem(newItem);
+        if (sameSize) {
+            invalidateItemBounds(newItem.bounds);
+        } else {
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * Measure the new item and layout it at the bounds of old item.
+     *
+     * @return false if the size is different, or the old item isn't laid out.
+     */
+    private boolean layoutInPlace(ToolbarItem oldItem, ToolbarItem newItem) {
+        if (isLayoutRequested() || oldItem.overflowed || GONE == oldItem.getVisibility()
+                || oldItem.bounds.isEmpty()) {
+            return false;
+        }
+        final int oldWidth = oldItem.measuredWidth;
+        final int oldHeight = oldItem.measuredHeight;
+        // The desired width of the items should be same, then new item can get the width of old item.
+        int desiredWidthSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        int heightSpec = MeasureSpec.makeMeasureSpec(mRowHeight, MeasureSpec.AT_MOST);
+        oldItem.measure(desiredWidthSpec, 0, heightSpec, 0, mMinimumHeight);
+        newItem.measure(desiredWidthSpec, 0, heightSpec, 0, mMinimumHeight);
+        if (oldItem.measuredWidth != newItem.measuredWidth) {
+            return false;
+        }
+        newItem.measure(MeasureSpec.makeMeasureSpec(oldWidth, MeasureSpec.EXACTLY), 0,
+                heightSpec, 0, mMinimumHeight);
+        if (mRowHeight > mMinimumHeight) {
+            newItem.stretch(mRowHeight);
+        }
+        if (newItem.measuredWidth != oldWidth || newItem.measuredHeight != oldHeight) {
+            return false;
+        }
+        newItem.layout(oldItem.bounds.left, getPaddingTop(), mRowHeight);
+        return true;
+    }
+
+    private void invalidateItemBounds(Rect bounds) {
+        if (isUpdating()) {
+            mInvalidatedInUpdate = true;
+            return;
+        }
+        invalidate(bounds.left, bounds.top + mCollapseTranslation,
+                bounds.right, bounds.bottom + mCollapseTranslation);
+    }
+
+    private void registerItem(ToolbarItem item) {
+        int id = item.getId();
+        if (NO_ID != id) {
+            mItemRegistry.put(id, item);
+        }
+    }
+
+    private void unregisterItem(ToolbarItem item) {
+        int id = item.getId();
+        if (NO_ID != id && mItemRegistry.get(id) == item) {
+            mItemRegistry.remove(id);
+        }
+    }
+
+    private List<ToolbarItem> findSlot(ToolbarItem item) {
+        if (mLeftMenuItems.contains(item)) {
+            return mLeftMenuItems;
+        }
+        return mRightMenuItems.contains(item) ? mRightMenuItems : mTitleItems;
+    }
+
+    private void recycleSubItems(List<ToolbarItem> slot) {
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            removeSubItemAt(slot, i);
+        }
+    }
+
+    private View getSubItemView(List<ToolbarItem> slot, int index) {
+        return index >= 0 && index < slot.size() ? slot.get(index).getView() : null;
+    }
+
+    /**
+     * Measure sub item with the remaining space.
+     *
+     * @return the horizontal space which the sub item occupied.
+     */
+    private int measureSubItem(ToolbarItem item, int parentWidthMeasureSpec, int widthUsed,
+                               int parentHeightMeasureSpec, int heightUsed) {
+        if (item.getView() instanceof TextView) {
+            prepareTextView((TextView) item.getView(), parentWidthMeasureSpec, widthUsed);
+        }
+        item.measure(parentWidthMeasureSpec, widthUsed, parentHeightMeasureSpec, heightUsed, mMinimumHeight);
+        mRowHeight = Math.max(mRowHeight, item.getOccupiedHeight());
+        return item.getOccupiedWidth();
+    }
+
+    /**
+     * Make the text of textView ready before it is measured.
+     */
+    private void prepareTextView(TextView textView, int parentWidthMeasureSpec, int widthUsed) {
+        // The precomputed text arrives late, set it synchronously.
+        TextPrecomputer.getInstance().flush(textView);
+        Object ops = textView.getTag(R.id.lib_toolbar_tag_auto_fit);
+        if (ops instanceof TextViewOptions && MeasureSpec.UNSPECIFIED != MeasureSpec.getMode(parentWidthMeasureSpec)) {
+            MarginLayoutParams params = (MarginLayoutParams) textView.getLayoutParams();
+            int availableWidth = MeasureSpec.getSize(parentWidthMeasureSpec) - widthUsed - params.leftMargin
+                    - params.rightMargin - textView.getPaddingLeft() - textView.getPaddingRight();
+            TextFitter.getInstance().fit(textView, (TextViewOptions) ops, availableWidth);
+        }
+    }
+
+    private int combineItemState(int childState, ToolbarItem item) {
+        View view = item.getView();
+        return null == view ? childState : combineMeasuredStates(childState, view.getMeasuredState());
+    }
+
+    private void stretchSubItems(List<ToolbarItem> slot) {
+        for (ToolbarItem item : slot) {
+            if (item.getVisibility() != GONE) {
+                item.stretch(mRowHeight);
+            }
+        }
+    }
+
+    /**
+     * Layout sub items from left to right, every item is vertical centered in the row.
+     */
+    private int layoutSubItems(List<ToolbarItem> slot, int left, int rowTop) {
+        int itemLeft = left;
+        for (ToolbarItem item : slot) {
+            if (item.overflowed) {
+                item.hide();
+            } else if (item.getVisibility() != GONE) {
+                itemLeft = item.layout(itemLeft, rowTop, mRowHeight);
+            }
+        }
+        return itemLeft;
+    }
+
+    /**
+     * The title keeps a third of the content width at least when the menus collapse.
+     */
+    private int getTitleReservedWidth(int contentWidth) {
+        for (ToolbarItem item : mTitleItems) {
+            if (item.getVisibility() != GONE) {
+                return contentWidth / 3 + mSubItemInterval * 2;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Move the right menu items into overflow menu from the lowest priority, until the menus
+     * and the overflow button fit the available width.
+     *
+     * @return true if some items are collapsed.
+     */
+    private boolean collapseRightMenuItems(int availableWidth, int widthMeasureSpec, int heightMeasureSpec,
+                                        int paddingVertical) {
+        if (null == mOverflowMenu) {
+            if (!hasCollapsibleItem(mRightMenuItems)) {
+                return false;
+            }
+            mOverflowMenu = new OverflowMenu(this, mRightMenuItems, mSubItemInterval);
+        }
+        ToolbarItem button = mOverflowMenu.getButton();
+        button.measure(widthMeasureSpec, 0, heightMeasureSpec, paddingVertical, mMinimumHeight);
+        int width = mRightMenuWidth + button.getOccupiedWidth();
+        boolean collapsed = false;
+        while (width > availableWidth) {
+            ToolbarItem victim = findLowestPriorityItem(mRightMenuItems);
+            if (null == victim) {
+                break;
+            }
+            victim.overflowed = true;
+            width -= victim.getOccupiedWidth();
+            collapsed = true;
+        }
+        if (collapsed) {
+            mOverflowVisible = true;
+            mRightMenuWidth = width;
+            mRowHeight = Math.max(mRowHeight, button.getOccupiedHeight());
+        }
+        return collapsed;
+    }
+
+    private boolean hasCollapsibleItem(List<ToolbarItem> slot) {
+        for (ToolbarItem item : slot) {
+            if (item.isCollapsible()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the visible collapsible item with the lowest priority, the later one wins the tie.
+     */
+    private ToolbarItem findLowestPriorityItem(List<ToolbarItem> slot) {
+        ToolbarItem result = null;
+        for (ToolbarItem item : slot) {
+            if (item.overflowed || item.getVisibility() == GONE || !item.isCollapsible()) {
+                continue;
+            }
+            if (null == result || item.getPriority() <= result.getPriority()) {
+                result = item;
+            }
+        }
+        return result;
+    }
+
+    private void drawSubItems(Canvas canvas, List<ToolbarItem> slot) {
+        for (ToolbarItem item : slot) {
+            if (!item.overflowed && item.getVisibility() != GONE) {
+                item.draw(canvas);
+            }
+        }
+    }
+
+    private ToolbarItem findClickableDrawnItem(int x, int y) {
+        ToolbarItem item = findClickableDrawnItem(mLeftMenuItems, x, y);
+        if (null == item) {
+            item = findClickableDrawnItem(mRightMenuItems, x, y);
+        }
+        if (null == item) {
+            item = findClickableDrawnItem(mTitleItems, x, y);
+        }
+        if (null == item && mOverflowVisible && mOverflowMenu.getButton().bounds.contains(x, y)) {
+            item = mOverflowMenu.getButton();
+        }
+        return item;
+    }
+
+    private ToolbarItem findClickableDrawnItem(List<ToolbarItem> slot, int x, int y) {
+        for (ToolbarItem item : slot) {
+            if (null == item.getView() && null != item.getListener() && item.getVisibility() != GONE
+                    && item.bounds.contains(x, y)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private boolean isSubItemDrawable(List<ToolbarItem> slot, Drawable who) {
+        for (ToolbarItem item : slot) {
+            if (item instanceof ImageItem && ((ImageItem) item).getDrawable() == who) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Get TextView instance.
      */
     private TextView createTextView() {
-        TextView textView = new TextView(getContext());
+        TextView textView = ItemViewPool.getInstance().obtainTextView(getContext());
         // Set params for the view.
-        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+        LayoutParams params = new LayoutParams(
                 ViewGroup.LayoutParams.WRAP_CONTENT,
                 ViewGroup.LayoutParams.MATCH_PARENT
         );
@@ -578,9 +2035,9 @@ public class SToolbar extends Toolbar {
      */
     private ImageView createImageView() {
         // Create ImageView instance.
-        ImageView imageView = new ImageView(getContext());
+        ImageView imageView = ItemViewPool.getInstance().obtainImageView(getContext());
         // Set default layout params.
-        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+        LayoutParams params = new LayoutParams(
                 ViewGroup.LayoutParams.WRAP_CONTENT,
                 ViewGroup.LayoutParams.WRAP_CONTENT
         );
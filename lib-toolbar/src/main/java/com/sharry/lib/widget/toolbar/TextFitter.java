@@ -0,0 +1,207 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.widget.TextView;
+
+/**
+ * Shrink the text size of TextView between the min and max size of {@link TextViewOptions},
+ * until the text fits the available width, the text is ellipsized by TextView at the min size.
+ * <p>
+ * The fitted size is cached by text, available width and the params of paint, so the repeated widths such as
+ * rotation and multi-window resize skip the search. The spanned text is never cached, its spans may hold
+ * the objects of user and change the width, the search is cheap enough for the rare spanned titles.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/30 20:40
+ */
+final class TextFitter {
+
+    private static final int MAX_CACHE_SIZE = 32;
+
+    private static final TextFitter INSTANCE = new TextFitter();
+
+    static TextFitter getInstance() {
+        return INSTANCE;
+    }
+
+    private final LruCache<Key, Float> mCache = new LruCache<>(MAX_CACHE_SIZE);
+    private final TextPaint mPaint = new TextPaint();
+    /**
+     * The key to look up the cache, it is copied only when a new size is put.
+     */
+    private final Key mLookupKey = new Key();
+
+    private TextFitter() {
+    }
+
+    /**
+     * Apply the fitted text size to textView, nothing changes if the size is same.
+     */
+    @MainThread
+    void fit(@NonNull TextView textView, @NonNull TextViewOptions ops, int availableWidth) {
+        CharSequence text = textView.getText();
+        if (null == text || 0 == text.length() || availableWidth <= 0) {
+            return;
+        }
+        DisplayMetrics metrics = textView.getResources().getDisplayMetrics();
+        float minSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, ops.minTextSize, metrics);
+        float maxSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, ops.maxTextSize, metrics);
+        float step = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 1, metrics);
+        // The text without spans is kept as String by TextView, toString() returns itself.
+        Key key = mLookupKey;
+        key.set(text.toString(), availableWidth, minSize, maxSize, ops.maxEms, ops.lines, textView.getPaint());
+        Float size = text instanceof Spanned ? null : mCache.get(key);
+        if (null == size) {
+            size = search(textView.getPaint(), text, key, step);
+            if (!(text instanceof Spanned)) {
+                mCache.put(key.copy(), size);
+            }
+        }
+        if (textView.getTextSize() != size) {
+            textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, size);
+        }
+    }
+
+    /**
+     * Drop all cached sizes.
+     */
+    void clear() {
+        mCache.evictAll();
+    }
+
+    int getCachedCount() {
+        return mCache.size();
+    }
+
+    /**
+     * Binary search the largest size fits the width, the size steps by 1sp from the min size.
+     */
+    private float search(TextPaint paint, CharSequence text, Key key, float step) {
+        mPaint.set(paint);
+        int low = 0;
+        int high = (int) ((key.maxSize - key.minSize) / step);
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (isFits(text, key, key.minSize + mid * step)) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return key.minSize + result * step;
+    }
+
+    private boolean isFits(CharSequence text, Key key, float size) {
+        mPaint.setTextSize(size);
+        // Same as TextView#setMaxEms, the max width is ems multiply line height.
+        int width = Math.min(key.width, key.maxEms * mPaint.getFontMetricsInt(null));
+        if (key.lines <= 1) {
+            return Layout.getDesiredWidth(text, mPaint) <= width;
+        }
+        return makeLayout(text, width).getLineCount() <= key.lines;
+    }
+
+    private StaticLayout makeLayout(CharSequence text, int width) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), mPaint, width)
+                    .setAlignment(Layout.Alignment.ALIGN_NORMAL)
+                    .setIncludePad(true)
+                    .build();
+        }
+        return makeLayoutCompat(text, width);
+    }
+
+    @SuppressWarnings("deprecation")
+    private StaticLayout makeLayoutCompat(CharSequence text, int width) {
+        return new StaticLayout(text, mPaint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+    }
+
+    /**
+     * The text without spans and the params of paint and width, which decide the fitted size.
+     */
+    private static final class Key {
+
+        String text;
+        int width;
+        float minSize;
+        float maxSize;
+        int maxEms;
+        int lines;
+        Typeface typeface;
+        float textScaleX;
+        float letterSpacing;
+        int paintFlags;
+
+        void set(String text, int width, float minSize, float maxSize, int maxEms, int lines, TextPaint paint) {
+            this.text = text;
+            this.width = width;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.maxEms = maxEms;
+            this.lines = lines;
+            this.typeface = paint.getTypeface();
+            this.textScaleX = paint.getTextScaleX();
+            this.letterSpacing = Utils.isLollipop() ? paint.getLetterSpacing() : 0;
+            this.paintFlags = paint.getFlags();
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.text = text;
+            key.width = width;
+            key.minSize = minSize;
+            key.maxSize = maxSize;
+            key.maxEms = maxEms;
+            key.lines = lines;
+            key.typeface = typeface;
+            key.textScaleX = textScaleX;
+            key.letterSpacing = letterSpacing;
+            key.paintFlags = paintFlags;
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return width == other.width && minSize == other.minSize && maxSize == other.maxSize
+                    && maxEms == other.maxEms && lines == other.lines && typeface == other.typeface
+                    && textScaleX == other.textScaleX && letterSpacing == other.letterSpacing
+                    && paintFlags == other.paintFlags && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = text.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + Float.floatToIntBits(minSize);
+            result = 31 * result + Float.floatToIntBits(maxSize);
+            result = 31 * result + maxEms;
+            result = 31 * result + lines;
+            result = 31 * result + (null == typeface ? 0 : typeface.hashCode());
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + Float.floatToIntBits(letterSpacing);
+            result = 31 * result + paintFlags;
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * The text sub item drawn by SToolbar directly, instead of a TextView.
+ * <p>
+ * The text is drawn from a cached StaticLayout, it will be rebuilt only when the content width changed.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/16 21:12
+ */
+class TextItem extends ToolbarItem {
+
+    private static final int UN_MEASURED = -1;
+
+    private final TextViewOptions mOps;
+    private final TextPaint mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final int mMaxWidth;
+    private int mDesiredWidth = UN_MEASURED;
+    private int mLayoutWidth = UN_MEASURED;
+    private Layout mLayout;
+
+    TextItem(@NonNull Context context, @NonNull TextViewOptions ops) {
+        mOps = ops;
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        mPaint.density = metrics.density;
+        mPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, ops.textSize, metrics));
+        mPaint.setColor(ops.textColor);
+        // Same as TextView#setMaxEms, the max width is ems multiply line height.
+        mMaxWidth = ops.maxEms * mPaint.getFontMetricsInt(null);
+    }
+
+    @Override
+    View.OnClickListener getListener() {
+        return mOps.listener;
+    }
+
+    @Override
+    Options getOptions() {
+        return mOps;
+    }
+
+    @Override
+    void measure(int parentWidthMeasureSpec, int widthUsed, int parentHeightMeasureSpec,
+                 int heightUsed, int minimumHeight) {
+        int paddingHorizontal = mOps.paddingLeft + mOps.paddingRight;
+        int availableWidth = View.MeasureSpec.getMode(parentWidthMeasureSpec) == View.MeasureSpec.UNSPECIFIED
+                ? Integer.MAX_VALUE : View.MeasureSpec.getSize(parentWidthMeasureSpec) - widthUsed - paddingHorizontal;
+        if (UN_MEASURED == mDesiredWidth) {
+            mDesiredWidth = (int) Math.ceil(Layout.getDesiredWidth(mOps.text, mPaint));
+        }
+        int contentWidth = Math.max(0, Math.min(mDesiredWidth, Math.min(mMaxWidth, availableWidth)));
+        if (null == mLayout || mLayoutWidth != contentWidth) {
+            mLayout = makeLayout(contentWidth);
+            mLayoutWidth = contentWidth;
+        }
+        measuredWidth = contentWidth + paddingHorizontal;
+        measuredHeight = mLayout.getHeight();
+    }
+
+    @Override
+    int layout(int left, int rowTop, int rowHeight) {
+        // Same as the TextView which height is MATCH_PARENT, the item occupied the whole row.
+        bounds.set(left, rowTop, left + measuredWidth, rowTop + rowHeight);
+        return left + measuredWidth;
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        if (null == mLayout) {
+            return;
+        }
+        int saveCount = canvas.save();
+        canvas.translate(bounds.left + mOps.paddingLeft,
+                bounds.top + (bounds.height() - mLayout.getHeight()) / 2);
+        mLayout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private Layout makeLayout(int width) {
+        CharSequence text = mOps.text;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), mPaint, width)
+                    .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                    .setIncludePad(true)
+                    .setMaxLines(mOps.lines)
+                    .setEllipsize(mOps.ellipsize)
+                    .setEllipsizedWidth(width)
+                    .build();
+        }
+        // StaticLayout cannot limit lines before M, ellipsize single line text by TextUtils.
+        if (1 == mOps.lines && null != mOps.ellipsize) {
+            text = TextUtils.ellipsize(text, mPaint, width, mOps.ellipsize);
+        }
+        return new StaticLayout(text, mPaint, width, Layout.Alignment.ALIGN_CENTER,
+                1f, 0f, true);
+    }
+
+}
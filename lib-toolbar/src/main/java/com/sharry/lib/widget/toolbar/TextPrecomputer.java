@@ -0,0 +1,178 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.widget.TextViewCompat;
+import android.text.SpannableString;
+import android.widget.TextView;
+
+import com.sharry.toolbar.R;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Measure the text of TextView on a background thread with {@link PrecomputedTextCompat}.
+ * <p>
+ * The text metrics params are captured from the TextView when the task is submitted, the result is
+ * applied on the main thread once ready. If the TextView is measured before the result arrives,
+ * the task is dropped and the text is set synchronously, so the TextView never measures stale text.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/29 21:15
+ */
+final class TextPrecomputer {
+
+    private static final TextPrecomputer INSTANCE = new TextPrecomputer();
+
+    static TextPrecomputer getInstance() {
+        return INSTANCE;
+    }
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "SToolbar-Precompute");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private TextPrecomputer() {
+    }
+
+    /**
+     * Precompute the text with the current params of textView, the text will be set later.
+     */
+    void precompute(@NonNull TextView textView, @NonNull CharSequence text) {
+        if (text instanceof PrecomputedTextCompat || 0 == text.length()) {
+            setText(textView, text);
+            return;
+        }
+        Task task = new Task(textView, text, TextViewCompat.getTextMetricsParams(textView));
+        textView.setTag(R.id.lib_toolbar_tag_precompute, task);
+        mExecutor.execute(task);
+    }
+
+    /**
+     * Set text to textView and drop the pending task, the text precomputed by user is set
+     * directly if its params match the textView.
+     */
+    void setText(@NonNull TextView textView, CharSequence text) {
+        cancel(textView);
+        if (text instanceof PrecomputedTextCompat) {
+            PrecomputedTextCompat precomputedText = (PrecomputedTextCompat) text;
+            if (precomputedText.getParams().equals(TextViewCompat.getTextMetricsParams(textView))) {
+                TextViewCompat.setPrecomputedText(textView, precomputedText);
+            } else {
+                // The style of textView changed after the text precomputed, keep the spans.
+                textView.setText(new SpannableString(text));
+            }
+            return;
+        }
+        textView.setText(text);
+    }
+
+    /**
+     * Drop the pending task of textView, so the stale result never overrides the text set later.
+     * <p>
+     * It is invoked on main thread, except the preloader sets the text of a view which never had a task,
+     * then it only reads the tag of the view owned by the preloader thread.
+     */
+    void cancel(@NonNull TextView textView) {
+        Object tag = textView.getTag(R.id.lib_toolbar_tag_precompute);
+        if (tag instanceof Task) {
+            textView.setTag(R.id.lib_toolbar_tag_precompute, null);
+            ((Task) tag).cancel(false);
+        }
+    }
+
+    /**
+     * Apply the pending task of textView before it is measured, the result is used if it is ready,
+     * otherwise the text is set synchronously.
+     */
+    @MainThread
+    void flush(@NonNull TextView textView) {
+        Object tag = textView.getTag(R.id.lib_toolbar_tag_precompute);
+        if (tag instanceof Task) {
+            ((Task) tag).apply();
+        }
+    }
+
+    private final class Task extends FutureTask<PrecomputedTextCompat> {
+
+        private final TextView mTextView;
+        private final CharSequence mText;
+        private final PrecomputedTextCompat.Params mParams;
+
+        Task(final TextView textView, final CharSequence text, final PrecomputedTextCompat.Params params) {
+            super(new Callable<PrecomputedTextCompat>() {
+                @Override
+                public PrecomputedTextCompat call() {
+                    return PrecomputedTextCompat.create(text, params);
+                }
+            });
+            mTextView = textView;
+            mText = text;
+            mParams = params;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    apply();
+                }
+            });
+        }
+
+        /**
+         * Set the result to the textView atomically, nothing happens if the task is out of date.
+         */
+        @MainThread
+        void apply() {
+            if (mTextView.getTag(R.id.lib_toolbar_tag_precompute) != this) {
+                return;
+            }
+            mTextView.setTag(R.id.lib_toolbar_tag_precompute, null);
+            PrecomputedTextCompat result = null;
+            if (isDone() && !isCancelled()) {
+                try {
+                    result = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    // Fallback to set text synchronously.
+                }
+            } else {
+                // The result arrives late, the textView is measuring now.
+                cancel(false);
+            }
+            if (null != result && mParams.equals(TextViewCompat.getTextMetricsParams(mTextView))) {
+                TextViewCompat.setPrecomputedText(mTextView, result);
+            } else {
+                mTextView.setText(mText);
+            }
+        }
+
+    }
+
+}
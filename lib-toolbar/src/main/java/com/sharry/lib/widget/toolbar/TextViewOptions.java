@@ -3,13 +3,17 @@ package com.sharry.lib.widget.toolbar;
 import android.graphics.Color;
 import android.support.annotation.ColorInt;
 import android.support.annotation.Dimension;
+import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
+import android.text.Spanned;
 import android.text.TextUtils;
 import android.util.TypedValue;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.sharry.toolbar.R;
+
 import static android.support.annotation.Dimension.PX;
 import static android.support.annotation.Dimension.SP;
 
@@ -59,6 +63,18 @@ public class TextViewOptions implements Options<TextView> {
     int paddingRight = DEFAULT_PADDING;
     // listener callback.
     View.OnClickListener listener = null;
+    // The lower priority item moves into overflow menu first.
+    int priority = PRIORITY_NEVER_OVERFLOW;
+    // The id to find the item in toolbar.
+    @IdRes
+    int id = View.NO_ID;
+    // Measure the text on background thread.
+    boolean precomputeText = false;
+    // Auto fit the text size between min and max size.
+    @Dimension(unit = SP)
+    int minTextSize = UN_INITIALIZE_TEXT_SIZE;
+    @Dimension(unit = SP)
+    int maxTextSize = UN_INITIALIZE_TEXT_SIZE;
 
     private TextViewOptions() {
     }
@@ -88,12 +104,121 @@ public class TextViewOptions implements Options<TextView> {
             textView.setOnClickListener(listener);
         }
         // Set some fields associated with this textView.
-        textView.setText(text);
         textView.setTextColor(textColor);
-        textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, textSize);
+        if (isAutoFit()) {
+            // The size is fitted by the toolbar when it is measured.
+            textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, maxTextSize);
+            textView.setTag(R.id.lib_toolbar_tag_auto_fit, this);
+        } else {
+            textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, textSize);
+            textView.setTag(R.id.lib_toolbar_tag_auto_fit, null);
+        }
         textView.setMaxEms(maxEms);
         textView.setLines(lines);
         textView.setEllipsize(ellipsize);
+        // Set text after the style, the text metrics params come from it.
+        if (precomputeText) {
+            TextPrecomputer.getInstance().precompute(textView, text);
+        } else {
+            TextPrecomputer.getInstance().setText(textView, text);
+        }
+    }
+
+    /**
+     * Apply the fields differ from the old options which completed the view, the layout params
+     * are same for all text options, so the view won't request layout if only the color changed.
+     */
+    void update(TextView textView, TextViewOptions old) {
+        if (paddingLeft != old.paddingLeft || paddingRight != old.paddingRight) {
+            textView.setPadding(paddingLeft, 0, paddingRight, 0);
+        }
+        if (listener != old.listener) {
+            Utils.setOnClickListener(textView, listener);
+        }
+        if (textColor != old.textColor) {
+            textView.setTextColor(textColor);
+        }
+        if (isAutoFit()) {
+            // The tag holds the fitting range, it never requests layout.
+            textView.setTag(R.id.lib_toolbar_tag_auto_fit, this);
+            if (maxTextSize != old.maxTextSize || !old.isAutoFit()) {
+                textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, maxTextSize);
+            }
+        } else {
+            textView.setTag(R.id.lib_toolbar_tag_auto_fit, null);
+            if (textSize != old.textSize || old.isAutoFit()) {
+                textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, textSize);
+            }
+        }
+        if (maxEms != old.maxEms) {
+            textView.setMaxEms(maxEms);
+        }
+        if (lines != old.lines) {
+            textView.setLines(lines);
+        }
+        if (ellipsize != old.ellipsize) {
+            textView.setEllipsize(ellipsize);
+        }
+        // The spans are not compared, set the spanned text always.
+        boolean sameText = text == old.text || (text instanceof String && text.equals(old.text));
+        if (!sameText || precomputeText != old.precomputeText) {
+            if (precomputeText) {
+                TextPrecomputer.getInstance().precompute(textView, text);
+            } else {
+                TextPrecomputer.getInstance().setText(textView, text);
+            }
+        }
+    }
+
+    boolean isAutoFit() {
+        return UN_INITIALIZE_TEXT_SIZE != maxTextSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TextViewOptions)) {
+            return false;
+        }
+        TextViewOptions other = (TextViewOptions) o;
+        return isSameText(text, other.text) && textSize == other.textSize
+                && textColor == other.textColor && maxEms == other.maxEms && lines == other.lines
+                && ellipsize == other.ellipsize && paddingLeft == other.paddingLeft
+                && paddingRight == other.paddingRight && listener == other.listener
+                && priority == other.priority && id == other.id
+                && precomputeText == other.precomputeText && minTextSize == other.minTextSize
+                && maxTextSize == other.maxTextSize;
+    }
+
+    /**
+     * The spans are not comparable, so the spanned texts are only same with themselves.
+     */
+    private static boolean isSameText(CharSequence text, CharSequence other) {
+        if (text == other) {
+            return true;
+        }
+        return !(text instanceof Spanned) && !(other instanceof Spanned) && TextUtils.equals(text, other);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = null == text ? 0 : text.toString().hashCode();
+        result = 31 * result + textSize;
+        result = 31 * result + textColor;
+        result = 31 * result + maxEms;
+        result = 31 * result + lines;
+        result = 31 * result + (null == ellipsize ? 0 : ellipsize.hashCode());
+        result = 31 * result + paddingLeft;
+        result = 31 * result + paddingRight;
+        result = 31 * result + (null == listener ? 0 : listener.hashCode());
+        result = 31 * result + priority;
+        result = 31 * result + id;
+        result = 31 * result + (precomputeText ? 1 : 0);
+        result = 31 * result + minTextSize;
+        result = 31 * result + maxTextSize;
+        return result;
     }
 
     /**
@@ -109,6 +234,11 @@ public class TextViewOptions implements Options<TextView> {
         this.paddingLeft = other.paddingLeft;
         this.paddingRight = other.paddingRight;
         this.listener = other.listener;
+        this.priority = other.priority;
+        this.id = other.id;
+        this.precomputeText = other.precomputeText;
+        this.minTextSize = other.minTextSize;
+        this.maxTextSize = other.maxTextSize;
     }
 
     /**
@@ -172,6 +302,49 @@ public class TextViewOptions implements Options<TextView> {
             return this;
         }
 
+        /**
+         * Set the priority of the right menu item, when the menus are too wide, the items move into
+         * the overflow menu from the lowest priority. The item never overflows by default.
+         */
+        public Builder setPriority(int priority) {
+            op.priority = priority;
+            return this;
+        }
+
+        /**
+         * Set the item id, U can update, remove or hide the item by id later.
+         */
+        public Builder setId(@IdRes int id) {
+            op.id = id;
+            return this;
+        }
+
+        /**
+         * Set the text can be {@link android.support.v4.text.PrecomputedTextCompat} which matches the style of
+         * this options, or enable {@link #setPrecomputeText(boolean)} to let toolbar precompute it.
+         * <p>
+         * If precompute text enabled, the text is measured on background thread and set when it is ready,
+         * the text is set synchronously if the view is measured before that.
+         */
+        public Builder setPrecomputeText(boolean precomputeText) {
+            op.precomputeText = precomputeText;
+            return this;
+        }
+
+        /**
+         * Shrink the text size from the max size to the min size until the text fits the available width,
+         * if it doesn't fit at the min size, it is ellipsized. The text size is ignored in this mode.
+         */
+        public Builder setAutoFitTextSize(@Dimension(unit = SP) int minTextSize,
+                                          @Dimension(unit = SP) int maxTextSize) {
+            if (minTextSize <= 0 || minTextSize > maxTextSize) {
+                throw new IllegalArgumentException("Please ensure 0 < minTextSize <= maxTextSize.");
+            }
+            op.minTextSize = minTextSize;
+            op.maxTextSize = maxTextSize;
+            return this;
+        }
+
         public TextViewOptions build() {
             if (null == op.text) {
                 throw new UnsupportedOperationException("Please ensure text field nonnull.");
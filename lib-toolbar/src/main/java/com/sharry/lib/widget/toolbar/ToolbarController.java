@@ -0,0 +1,146 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import com.sharry.toolbar.R;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The controller of the only toolbar shared by all screens of an activity.
+ * <p>
+ * Every screen, such as a fragment, pushes its toolbar state when it is shown and pops it when it
+ * is gone. The state is an immutable {@link ToolbarSpec}, it is applied by {@link SToolbar#update(ToolbarSpec)},
+ * so the menu views are reused between states, and the previous state is restored without
+ * constructing any toolbar when navigating back.
+ * <p>
+ * The toolbar is added to the top of activity content at the first push, unless U set one by
+ * {@link #setToolbar(SToolbar)}.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/11/2 21:20
+ */
+public final class ToolbarController {
+
+    /**
+     * Get the controller associated with the activity, it is kept by the decor view, so it is
+     * released with the activity.
+     */
+    @MainThread
+    public static ToolbarController with(@NonNull Activity activity) {
+        View decorView = activity.getWindow().getDecorView();
+        ToolbarController controller = (ToolbarController) decorView.getTag(R.id.lib_toolbar_tag_controller);
+        if (null == controller) {
+            controller = new ToolbarController(activity);
+            decorView.setTag(R.id.lib_toolbar_tag_controller, controller);
+        }
+        return controller;
+    }
+
+    private final Activity mActivity;
+    private final Deque<ToolbarSpec> mStates = new ArrayDeque<>();
+    private SToolbar mToolbar;
+
+    private ToolbarController(Activity activity) {
+        mActivity = activity;
+    }
+
+    /**
+     * Set the shared toolbar, such as the one inflated from the layout of activity.
+     * The current state is applied to it if present.
+     */
+    @MainThread
+    public void setToolbar(@NonNull SToolbar toolbar) {
+        mToolbar = toolbar;
+        ToolbarSpec current = mStates.peek();
+        if (null != current) {
+            show(current);
+        }
+    }
+
+    /**
+     * Get the shared toolbar, null if nothing pushed and no toolbar set.
+     */
+    @Nullable
+    public SToolbar getToolbar() {
+        return mToolbar;
+    }
+
+    /**
+     * Push a toolbar state and show it.
+     * <p>
+     * U can build the state once by {@link Builder#buildSpec()} and keep it with the screen,
+     * the spec which contains custom views is only valid for this controller.
+     */
+    @MainThread
+    public SToolbar push(@NonNull ToolbarSpec spec) {
+        mStates.push(spec);
+        return show(spec);
+    }
+
+    /**
+     * Pop the top state and restore the previous one, the toolbar is gone when no state left,
+     * and the content under it moves up until a state is pushed again.
+     *
+     * @return false if there is no state to pop.
+     */
+    @MainThread
+    public boolean pop() {
+        if (mStates.isEmpty()) {
+            return false;
+        }
+        mStates.pop();
+        showTop();
+        return true;
+    }
+
+    /**
+     * Remove the state pushed before, it is same as {@link #pop()} if the state is on the top.
+     * <p>
+     * U can invoke it in Fragment#onDestroyView, the fragments may be removed out of order.
+     *
+     * @return false if the state isn't in the stack.
+     */
+    @MainThread
+    public boolean remove(@NonNull ToolbarSpec spec) {
+        if (spec == mStates.peek()) {
+            return pop();
+        }
+        return mStates.removeFirstOccurrence(spec);
+    }
+
+    /**
+     * Get the count of states in the stack.
+     */
+    public int getStateCount() {
+        return mStates.size();
+    }
+
+    private void showTop() {
+        ToolbarSpec current = mStates.peek();
+        if (null != current) {
+            show(current);
+        } else if (null != mToolbar) {
+            mToolbar.setVisibility(View.GONE);
+        }
+    }
+
+    private SToolbar show(ToolbarSpec spec) {
+        if (null == mToolbar) {
+            mToolbar = spec.apply(mActivity);
+            return mToolbar;
+        }
+        mToolbar.update(spec);
+        if (View.VISIBLE != mToolbar.getVisibility()) {
+            mToolbar.setVisibility(View.VISIBLE);
+        }
+        return mToolbar;
+    }
+
+}
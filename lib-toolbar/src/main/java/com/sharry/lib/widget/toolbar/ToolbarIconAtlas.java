@@ -0,0 +1,349 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+import android.support.v4.content.pm.PackageInfoCompat;
+import android.support.v7.content.res.AppCompatResources;
+import android.util.Log;
+import android.util.TypedValue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Rasterize the registered toolbar icons of the current density into a single bitmap atlas.
+ * <p>
+ * The atlas is built on a background thread when it is prepared first time, and persisted in the
+ * app-private storage with an index of the regions. The atlas file is versioned by the icons,
+ * the resolved icon files, the density and the version of the app, so it is rebuilt only when
+ * the resources may change.
+ * After installed, the icons described by the same drawable res, size and tint are drawn from
+ * the regions of atlas, without parsing and rendering the vector drawables.
+ * <p>
+ * The icons are rasterized with the theme of application, so the atlas only serves the activities
+ * declared with the application theme or without own theme. The icons of the other themes are
+ * rasterized by {@link IconCache} as before.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/11/1 20:50
+ */
+public final class ToolbarIconAtlas {
+
+    private static final String TAG = ToolbarIconAtlas.class.getSimpleName();
+    private static final String ATLAS_DIR = "stoolbar-atlas";
+    private static final String ATLAS_PREFIX = "atlas-";
+    private static final String BITMAP_SUFFIX = ".png";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    /**
+     * Change it when the format of the persisted atlas changed.
+     */
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_ATLAS_WIDTH = 1024;
+    /**
+     * The gap between regions, avoid the bitmap filter samples the neighbour icon.
+     */
+    private static final int REGION_GAP = 1;
+
+    private static volatile ToolbarIconAtlas sInstance;
+
+    public static ToolbarIconAtlas getInstance() {
+        if (null == sInstance) {
+            synchronized (ToolbarIconAtlas.class) {
+                if (null == sInstance) {
+                    sInstance = new ToolbarIconAtlas();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    private final Executor mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "SToolbar-IconAtlas");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ToolbarIconAtlas() {
+    }
+
+    /**
+     * Load the persisted atlas of the icons, or build it if absent, then install it on background.
+     * U can invoke it in Application#onCreate.
+     * <p>
+     * The icons are matched by the drawable res, size and tint of the options, so pass the same options
+     * as the toolbar, the other fields are ignored. Only the activities in the application theme use them. Every call replaces the atlas installed before,
+     * so register all the icons in one call.
+     */
+    public void prepare(@NonNull Context context, @NonNull ImageViewOptions... icons) {
+        final Context appContext = context.getApplicationContext();
+        final List<ImageViewOptions> ops = new ArrayList<>(icons.length);
+        for (ImageViewOptions icon : icons) {
+            if (ImageViewOptions.UN_INITIALIZE_RES_ID != icon.drawableResId) {
+                ops.add(icon);
+            }
+        }
+        if (ops.isEmpty()) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    prepareInternal(appContext, ops);
+                } catch (IOException | RuntimeException e) {
+                    // The icons are rasterized by IconCache as before.
+                    Log.w(TAG, "Prepare icon atlas failed.", e);
+                }
+            }
+        });
+    }
+
+    @WorkerThread
+    private void prepareInternal(Context context, List<ImageViewOptions> ops) throws IOException {
+        File dir = new File(context.getFilesDir(), ATLAS_DIR);
+        String name = ATLAS_PREFIX + getVersion(context, ops);
+        File bitmapFile = new File(dir, name + BITMAP_SUFFIX);
+        File indexFile = new File(dir, name + INDEX_SUFFIX);
+        List<ImageViewOptions> installed = new ArrayList<>(ops.size());
+        List<Rect> regions = new ArrayList<>(ops.size());
+        Bitmap atlas = null;
+        if (bitmapFile.exists() && indexFile.exists()) {
+            atlas = load(ops, bitmapFile, indexFile, installed, regions);
+        }
+        if (null == atlas) {
+            installed.clear();
+            regions.clear();
+            List<Integer> positions = new ArrayList<>(ops.size());
+            atlas = build(context, ops, installed, positions, regions);
+            if (null == atlas) {
+                return;
+            }
+            save(dir, name, atlas, positions, regions);
+        }
+        // The icons are rasterized with the application context, same as the activities without own theme.
+        IconCache.getInstance().installAtlas(context.getResources(), context.getApplicationInfo().theme,
+                installed, regions, atlas);
+    }
+
+    /**
+     * Rasterize the icons with the same size as {@link IconCache}, and pack them row by row
+     * from the tallest one.
+     *
+     * @param outPositions the positions in ops of the installed icons, they are persisted in the index.
+     * @return null if no icon can be rasterized.
+     */
+    private Bitmap build(Context context, List<ImageViewOptions> ops, List<ImageViewOptions> outInstalled,
+                         List<Integer> outPositions, List<Rect> outRegions) {
+        final List<Drawable> drawables = new ArrayList<>(ops.size());
+        final List<int[]> sizes = new ArrayList<>(ops.size());
+        int totalWidth = 0;
+        int maxWidth = 0;
+        for (int position = 0; position < ops.size(); position++) {
+            ImageViewOptions icon = ops.get(position);
+            Drawable drawable = AppCompatResources.getDrawable(context, icon.drawableResId);
+            if (null == drawable || drawable.getIntrinsicWidth() <= 0 || drawable.getIntrinsicHeight() <= 0
+                    || !IconCache.shouldRasterize(drawable, icon.tintColor)) {
+                continue;
+            }
+            int[] size = IconCache.computeRasterSize(IconCache.targetSize(icon.widthExcludePadding),
+                    IconCache.targetSize(icon.heightExcludePadding),
+                    drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+            outInstalled.add(icon);
+            outPositions.add(position);
+            drawables.add(drawable);
+            sizes.add(size);
+            totalWidth += size[0] + REGION_GAP;
+            maxWidth = Math.max(maxWidth, size[0]);
+        }
+        if (drawables.isEmpty()) {
+            return null;
+        }
+        Integer[] order = new Integer[sizes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return sizes.get(o2)[1] - sizes.get(o1)[1];
+            }
+        });
+        int atlasWidth = Math.max(maxWidth, Math.min(MAX_ATLAS_WIDTH, totalWidth));
+        Rect[] regions = new Rect[sizes.size()];
+        int left = 0;
+        int top = 0;
+        int rowHeight = 0;
+        for (int index : order) {
+            int[] size = sizes.get(index);
+            if (left > 0 && left + size[0] > atlasWidth) {
+                left = 0;
+                top += rowHeight + REGION_GAP;
+                rowHeight = 0;
+            }
+            regions[index] = new Rect(left, top, left + size[0], top + size[1]);
+            left += size[0] + REGION_GAP;
+            rowHeight = Math.max(rowHeight, size[1]);
+        }
+        Bitmap atlas = Bitmap.createBitmap(atlasWidth, top + rowHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(atlas);
+        for (int i = 0; i < regions.length; i++) {
+            IconCache.drawRaster(drawables.get(i), outInstalled.get(i).tintColor, canvas, regions[i]);
+        }
+        Collections.addAll(outRegions, regions);
+        return atlas;
+    }
+
+    /**
+     * Write the atlas and its index to temp files first, so a broken atlas is never loaded.
+     * The atlases of the other versions are deleted.
+     * <p>
+     * The index refers the icons by position, the equal options such as the ones differ only in listener
+     * can't be told apart by equals.
+     */
+    private void save(File dir, String name, Bitmap atlas, List<Integer> positions, List<Rect> regions)
+            throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Can't create the atlas dir: " + dir);
+        }
+        File bitmapTemp = new File(dir, name + BITMAP_SUFFIX + TEMP_SUFFIX);
+        File indexTemp = new File(dir, name + INDEX_SUFFIX + TEMP_SUFFIX);
+        OutputStream bitmapOut = null;
+        DataOutputStream indexOut = null;
+        try {
+            bitmapOut = new BufferedOutputStream(new FileOutputStream(bitmapTemp));
+            if (!atlas.compress(Bitmap.CompressFormat.PNG, 100, bitmapOut)) {
+                throw new IOException("Can't compress the atlas.");
+            }
+            indexOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexTemp)));
+            indexOut.writeInt(FORMAT_VERSION);
+            indexOut.writeInt(positions.size());
+            for (int i = 0; i < positions.size(); i++) {
+                Rect region = regions.get(i);
+                indexOut.writeInt(positions.get(i));
+                indexOut.writeInt(region.left);
+                indexOut.writeInt(region.top);
+                indexOut.writeInt(region.right);
+                indexOut.writeInt(region.bottom);
+            }
+        } finally {
+            Utils.closeQuietly(bitmapOut);
+            Utils.closeQuietly(indexOut);
+        }
+        if (!bitmapTemp.renameTo(new File(dir, name + BITMAP_SUFFIX))
+                || !indexTemp.renameTo(new File(dir, name + INDEX_SUFFIX))) {
+            throw new IOException("Can't save the atlas: " + name);
+        }
+        File[] files = dir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                if (!file.getName().startsWith(name)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the persisted atlas.
+     *
+     * @return null if the atlas is broken.
+     */
+    private Bitmap load(List<ImageViewOptions> ops, File bitmapFile, File indexFile,
+                        List<ImageViewOptions> outInstalled, List<Rect> outRegions) {
+        DataInputStream indexIn = null;
+        try {
+            indexIn = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            if (FORMAT_VERSION != indexIn.readInt()) {
+                return null;
+            }
+            int count = indexIn.readInt();
+            for (int i = 0; i < count; i++) {
+                int index = indexIn.readInt();
+                if (index < 0 || index >= ops.size()) {
+                    return null;
+                }
+                outInstalled.add(ops.get(index));
+                outRegions.add(new Rect(indexIn.readInt(), indexIn.readInt(), indexIn.readInt(), indexIn.readInt()));
+            }
+        } catch (IOException e) {
+            return null;
+        } finally {
+            Utils.closeQuietly(indexIn);
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        return BitmapFactory.decodeFile(bitmapFile.getPath(), options);
+    }
+
+    /**
+     * The version of atlas, it changes when the icons, the density or the resources of app change.
+     * <p>
+     * The file and the asset cookie which each icon resolved to are hashed too, so the atlas is
+     * rebuilt when the resources are overlaid or reinstalled with the same version code.
+     */
+    private String getVersion(Context context, List<ImageViewOptions> ops) {
+        Resources resources = context.getResources();
+        StringBuilder sb = new StringBuilder();
+        sb.append(FORMAT_VERSION).append('|').append(resources.getDisplayMetrics().densityDpi)
+                .append('|').append(context.getApplicationInfo().theme);
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            sb.append('|').append(PackageInfoCompat.getLongVersionCode(info))
+                    .append('|').append(info.lastUpdateTime);
+        } catch (PackageManager.NameNotFoundException e) {
+            // Never happen, the package of the app itself.
+        }
+        TypedValue value = new TypedValue();
+        for (ImageViewOptions icon : ops) {
+            sb.append('|').append(icon.drawableResId)
+                    .append(',').append(IconCache.targetSize(icon.widthExcludePadding))
+                    .append(',').append(IconCache.targetSize(icon.heightExcludePadding))
+                    .append(',').append(icon.tintColor);
+            try {
+                resources.getValue(icon.drawableResId, value, true);
+                sb.append(',').append(value.string).append(',').append(value.assetCookie)
+                        .append(',').append(value.density);
+            } catch (Resources.NotFoundException e) {
+                // The icon is skipped when building.
+            }
+        }
+        return Utils.sha1(sb.toString());
+    }
+
+}
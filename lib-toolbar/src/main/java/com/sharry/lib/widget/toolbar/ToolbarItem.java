@@ -0,0 +1,288 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * The sub item associated with the slots of SToolbar.
+ * <p>
+ * It can be a real child view {@link ViewItem}, or a lightweight record which measured,
+ * laid out and drawn by SToolbar directly, such as {@link TextItem} and {@link ImageItem}.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/16 21:05
+ */
+abstract class ToolbarItem {
+
+    /**
+     * The region this item occupied in SToolbar, it is valid after layout.
+     */
+    final Rect bounds = new Rect();
+    int measuredWidth;
+    int measuredHeight;
+    /**
+     * Whether this item is moved into the overflow menu, it is decided in measure.
+     */
+    boolean overflowed;
+    /**
+     * The visibility of the drawn item, the view item uses the visibility of its view.
+     */
+    int visibility = View.VISIBLE;
+    /**
+     * Whether this item is created by a {@link ToolbarSpec}, only these items are replaced when the spec updated.
+     */
+    boolean fromSpec;
+
+    /**
+     * Get the child view associated with this item, null means this item is drawn by SToolbar.
+     */
+    View getView() {
+        return null;
+    }
+
+    int getVisibility() {
+        return visibility;
+    }
+
+    void setVisibility(int visibility) {
+        this.visibility = visibility;
+    }
+
+    /**
+     * Get the id of this item, it comes from the options, or the view id of custom view.
+     */
+    int getId() {
+        Options ops = getOptions();
+        if (ops instanceof TextViewOptions) {
+            return ((TextViewOptions) ops).id;
+        } else if (ops instanceof ImageViewOptions) {
+            return ((ImageViewOptions) ops).id;
+        } else {
+            return View.NO_ID;
+        }
+    }
+
+    View.OnClickListener getListener() {
+        return null;
+    }
+
+    /**
+     * Get the options which this item created from, null means the item can't be described by options.
+     */
+    Options getOptions() {
+        return null;
+    }
+
+    /**
+     * Whether this item can move into the overflow menu, the overflow menu recreates it from options.
+     */
+    boolean isCollapsible() {
+        return getPriority() != Options.PRIORITY_NEVER_OVERFLOW;
+    }
+
+    int getPriority() {
+        Options ops = getOptions();
+        if (ops instanceof TextViewOptions) {
+            return ((TextViewOptions) ops).priority;
+        } else if (ops instanceof ImageViewOptions) {
+            return ((ImageViewOptions) ops).priority;
+        } else {
+            return Options.PRIORITY_NEVER_OVERFLOW;
+        }
+    }
+
+    /**
+     * Invoked when this item added to the toolbar.
+     */
+    void onAttach(@NonNull SToolbar host) {
+    }
+
+    /**
+     * Invoked when this item removed from the toolbar.
+     */
+    void onDetach(@NonNull SToolbar host) {
+    }
+
+    /**
+     * Measure this item with the remaining space of toolbar.
+     */
+    abstract void measure(int parentWidthMeasureSpec, int widthUsed, int parentHeightMeasureSpec,
+                          int heightUsed, int minimumHeight);
+
+    /**
+     * Invoked when the row taller than the minimum height.
+     */
+    void stretch(int rowHeight) {
+    }
+
+    /**
+     * The horizontal space this item occupied, include margins.
+     */
+    int getOccupiedWidth() {
+        return measuredWidth;
+    }
+
+    /**
+     * The vertical space this item occupied, include margins.
+     */
+    int getOccupiedHeight() {
+        return measuredHeight;
+    }
+
+    /**
+     * Layout this item vertical centered in the row.
+     *
+     * @return the left position of next item.
+     */
+    int layout(int left, int rowTop, int rowHeight) {
+        int top = rowTop + (rowHeight - measuredHeight) / 2;
+        bounds.set(left, top, left + measuredWidth, top + measuredHeight);
+        return left + measuredWidth;
+    }
+
+    /**
+     * Hide this item when it is moved into the overflow menu.
+     */
+    void hide() {
+        bounds.setEmpty();
+    }
+
+    /**
+     * Draw this item on the toolbar canvas.
+     */
+    void draw(Canvas canvas) {
+    }
+
+    /**
+     * The item associated with a real child view.
+     */
+    static final class ViewItem extends ToolbarItem {
+
+        final View view;
+        /**
+         * Whether the view is created by toolbar, it can be released to {@link ItemViewPool}.
+         */
+        final boolean recyclable;
+        /**
+         * The options which the view created from, it is valid only for the view created by toolbar.
+         */
+        Options ops;
+        /**
+         * The options which completed the custom view last time, the update only applies the differences.
+         */
+        Options completedOps;
+
+        ViewItem(@NonNull View view) {
+            this(view, false, null);
+        }
+
+        ViewItem(@NonNull View view, boolean recyclable) {
+            this(view, recyclable, null);
+        }
+
+        ViewItem(@NonNull View view, boolean recyclable, Options ops) {
+            this.view = view;
+            this.recyclable = recyclable;
+            this.ops = ops;
+        }
+
+        @Override
+        Options getOptions() {
+            return ops;
+        }
+
+        @Override
+        boolean isCollapsible() {
+            // The custom view can't be recreated in the overflow menu.
+            return recyclable && super.isCollapsible();
+        }
+
+        @Override
+        void hide() {
+            super.hide();
+            view.layout(0, 0, 0, 0);
+        }
+
+        @Override
+        View getView() {
+            return view;
+        }
+
+        @Override
+        int getVisibility() {
+            return view.getVisibility();
+        }
+
+        @Override
+        void setVisibility(int visibility) {
+            view.setVisibility(visibility);
+        }
+
+        @Override
+        int getId() {
+            return null != ops ? super.getId() : view.getId();
+        }
+
+        @Override
+        void measure(int parentWidthMeasureSpec, int widthUsed, int parentHeightMeasureSpec,
+                     int heightUsed, int minimumHeight) {
+            ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+            int horizontalMargins = params.leftMargin + params.rightMargin;
+            int verticalMargins = params.topMargin + params.bottomMargin;
+            int childWidthMeasureSpec = ViewGroup.getChildMeasureSpec(parentWidthMeasureSpec,
+                    widthUsed + horizontalMargins, params.width);
+            // The MATCH_PARENT height view is measured with the minimum height first.
+            int childHeightMeasureSpec = params.height == ViewGroup.LayoutParams.MATCH_PARENT
+                    ? View.MeasureSpec.makeMeasureSpec(Math.max(0, minimumHeight - verticalMargins),
+                    View.MeasureSpec.EXACTLY)
+                    : ViewGroup.getChildMeasureSpec(parentHeightMeasureSpec, heightUsed + verticalMargins,
+                    params.height);
+            view.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            measuredWidth = view.getMeasuredWidth();
+            measuredHeight = view.getMeasuredHeight();
+        }
+
+        @Override
+        void stretch(int rowHeight) {
+            ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+            if (params.height != ViewGroup.LayoutParams.MATCH_PARENT) {
+                return;
+            }
+            view.measure(
+                    View.MeasureSpec.makeMeasureSpec(view.getMeasuredWidth(), View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(Math.max(0, rowHeight - params.topMargin - params.bottomMargin),
+                            View.MeasureSpec.EXACTLY)
+            );
+            measuredHeight = view.getMeasuredHeight();
+        }
+
+        @Override
+        int getOccupiedWidth() {
+            ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+            return measuredWidth + params.leftMargin + params.rightMargin;
+        }
+
+        @Override
+        int getOccupiedHeight() {
+            ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+            return measuredHeight + params.topMargin + params.bottomMargin;
+        }
+
+        @Override
+        int layout(int left, int rowTop, int rowHeight) {
+            ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+            int childLeft = left + params.leftMargin;
+            int childTop = rowTop + params.topMargin
+                    + (rowHeight - params.topMargin - params.bottomMargin - measuredHeight) / 2;
+            view.layout(childLeft, childTop, childLeft + measuredWidth, childTop + measuredHeight);
+            bounds.set(childLeft, childTop, childLeft + measuredWidth, childTop + measuredHeight);
+            return childLeft + measuredWidth + params.rightMargin;
+        }
+
+    }
+
+}
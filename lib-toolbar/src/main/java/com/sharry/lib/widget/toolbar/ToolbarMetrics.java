@@ -0,0 +1,256 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.os.TraceCompat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The opt-in metrics of SToolbar, aggregated across all live toolbars.
+ * <p>
+ * When enabled, the construction, build, measure, layout and draw passes are counted, timed and
+ * wrapped by {@link TraceCompat} sections, the requestLayout calls are counted. The origins of
+ * requestLayout need a stack trace per call, they are only recorded when
+ * {@link #setRecordRequestLayoutOrigins(boolean)} as well. When disabled, every hook costs a single
+ * static field check.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/27 16:45
+ */
+public final class ToolbarMetrics {
+
+    /*
+      Events
+     */
+    public static final int EVENT_CONSTRUCT = 0;
+    public static final int EVENT_BUILD = 1;
+    public static final int EVENT_MEASURE = 2;
+    public static final int EVENT_LAYOUT = 3;
+    public static final int EVENT_DRAW = 4;
+    public static final int EVENT_REQUEST_LAYOUT = 5;
+    private static final String[] EVENT_NAMES = {
+            "SToolbar#construct", "SToolbar#build", "SToolbar#onMeasure",
+            "SToolbar#onLayout", "SToolbar#onDraw", "SToolbar#requestLayout"
+    };
+    private static final long NOT_RECORDING = 0;
+
+    /**
+     * The callback of every recorded event, it is invoked on the thread which the event happens.
+     */
+    public interface Listener {
+
+        /**
+         * @param toolbar        the toolbar which the event happens, null for {@link #EVENT_BUILD}.
+         * @param event          one of the EVENT_XXX constants.
+         * @param durationNanos  the duration of the event, 0 for {@link #EVENT_REQUEST_LAYOUT}.
+         * @param origin         the method which requested layout, only for {@link #EVENT_REQUEST_LAYOUT}
+         *                       when the origins are recorded.
+         */
+        void onEvent(@Nullable SToolbar toolbar, int event, long durationNanos, @Nullable String origin);
+
+    }
+
+    private static volatile boolean sEnabled = false;
+    private static volatile boolean sRecordOrigins = false;
+    private static Listener sListener;
+    private static final long[] sCounts = new long[EVENT_NAMES.length];
+    private static final long[] sDurations = new long[EVENT_NAMES.length];
+    private static final Map<String, Integer> sRequestLayoutOrigins = new HashMap<>();
+    private static final Map<SToolbar, Boolean> sLiveToolbars = new WeakHashMap<>();
+
+    private ToolbarMetrics() {
+    }
+
+    /**
+     * Enable or disable the metrics, the aggregated data is kept until {@link #reset()}.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Record the origin of every requestLayout when the metrics enabled, it allocates a stack trace
+     * per call, so keep it for debugging.
+     */
+    public static void setRecordRequestLayoutOrigins(boolean record) {
+        sRecordOrigins = record;
+    }
+
+    public static boolean isRecordingRequestLayoutOrigins() {
+        return sRecordOrigins;
+    }
+
+    public static synchronized void setListener(@Nullable Listener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Get the count of the event since last reset.
+     */
+    public static synchronized long getCount(int event) {
+        return sCounts[event];
+    }
+
+    /**
+     * Get the total duration of the event in nanoseconds since last reset.
+     */
+    public static synchronized long getTotalDurationNanos(int event) {
+        return sDurations[event];
+    }
+
+    /**
+     * Get the requestLayout count grouped by origin, the origin is "ClassName#method" of the caller.
+     * It is empty unless {@link #setRecordRequestLayoutOrigins(boolean)}.
+     */
+    public static synchronized Map<String, Integer> getRequestLayoutOrigins() {
+        return Collections.unmodifiableMap(new HashMap<>(sRequestLayoutOrigins));
+    }
+
+    /**
+     * Get the count of live toolbars constructed when the metrics enabled.
+     */
+    @MainThread
+    public static synchronized int getLiveToolbarCount() {
+        return sLiveToolbars.size();
+    }
+
+    /**
+     * Get the count of the child views held by live toolbars.
+     */
+    @MainThread
+    public static synchronized int getViewCount() {
+        int count = 0;
+        for (SToolbar toolbar : sLiveToolbars.keySet()) {
+            count += toolbar.getChildCount();
+        }
+        return count;
+    }
+
+    /**
+     * Get the count of the child views held by live toolbars, grouped by the activity class name,
+     * the toolbars not hosted by an activity are grouped by null.
+     */
+    @MainThread
+    public static synchronized Map<String, Integer> getViewCountByScreen() {
+        Map<String, Integer> result = new HashMap<>();
+        for (SToolbar toolbar : sLiveToolbars.keySet()) {
+            Activity activity = Utils.findActivity(toolbar.getContext());
+            String screen = null == activity ? null : activity.getClass().getName();
+            Integer count = result.get(screen);
+            result.put(screen, (null == count ? 0 : count) + toolbar.getChildCount());
+        }
+        return result;
+    }
+
+    /**
+     * Drop all the aggregated data.
+     */
+    public static synchronized void reset() {
+        for (int i = 0; i < sCounts.length; i++) {
+            sCounts[i] = 0;
+            sDurations[i] = 0;
+        }
+        sRequestLayoutOrigins.clear();
+    }
+
+    /**
+     * Mark the beginning of event.
+     *
+     * @return the token pass to {@link #end}.
+     */
+    static long begin(int event) {
+        if (!sEnabled) {
+            return NOT_RECORDING;
+        }
+        TraceCompat.beginSection(EVENT_NAMES[event]);
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark the end of event, it does nothing if the metrics was disabled when the event began.
+     */
+    static void end(@Nullable SToolbar toolbar, int event, long token) {
+        if (NOT_RECORDING == token) {
+            return;
+        }
+        long duration = System.nanoTime() - token;
+        TraceCompat.endSection();
+        Listener listener;
+        synchronized (ToolbarMetrics.class) {
+            sCounts[event]++;
+            sDurations[event] += duration;
+            if (EVENT_CONSTRUCT == event && null != toolbar) {
+                sLiveToolbars.put(toolbar, Boolean.TRUE);
+            }
+            listener = sListener;
+        }
+        if (null != listener) {
+            listener.onEvent(toolbar, event, duration, null);
+        }
+    }
+
+    /**
+     * Record a requestLayout call of toolbar.
+     */
+    static void onRequestLayout(@NonNull SToolbar toolbar) {
+        if (!sEnabled) {
+            return;
+        }
+        String origin = sRecordOrigins ? findOrigin(new Throwable().getStackTrace()) : null;
+        Listener listener;
+        synchronized (ToolbarMetrics.class) {
+            sCounts[EVENT_REQUEST_LAYOUT]++;
+            if (null != origin) {
+                Integer count = sRequestLayoutOrigins.get(origin);
+                sRequestLayoutOrigins.put(origin, (null == count ? 0 : count) + 1);
+            }
+            listener = sListener;
+        }
+        if (null != listener) {
+            listener.onEvent(toolbar, EVENT_REQUEST_LAYOUT, 0, origin);
+        }
+    }
+
+    /**
+     * Find the outermost toolbar method which leads to requestLayout, it is the setter invoked by user.
+     * If the toolbar doesn't appear, the first caller outside requestLayout is used.
+     */
+    private static String findOrigin(StackTraceElement[] stackTrace) {
+        String toolbarClass = SToolbar.class.getName();
+        StackTraceElement toolbarElement = null;
+        StackTraceElement fallback = null;
+        for (StackTraceElement element : stackTrace) {
+            String className = element.getClassName();
+            if (className.equals(toolbarClass)) {
+                if (!"requestLayout".equals(element.getMethodName())) {
+                    toolbarElement = element;
+                }
+                continue;
+            }
+            if (null != toolbarElement) {
+                // Left the toolbar methods.
+                break;
+            }
+            if (null == fallback && !className.equals(ToolbarMetrics.class.getName())
+                    && !"requestLayout".equals(element.getMethodName())) {
+                fallback = element;
+            }
+        }
+        if (null != toolbarElement) {
+            return "SToolbar#" + toolbarElement.getMethodName();
+        }
+        return null == fallback ? "unknown" : fallback.getClassName() + "#" + fallback.getMethodName();
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Process;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Build SToolbar instances on a background thread before the Activity needs them.
+ * <p>
+ * The toolbar and its item views are built with {@link MutableContextWrapper}, which base context is
+ * switched to the activity when it is obtained, the parts associated with the window are applied at that time.
+ * Then {@link ToolbarSpec#apply(Activity)} only need to attach the prebuilt instance.
+ * <p>
+ * Threading contract: a toolbar is only touched by the preloader thread until it is queued, and only
+ * by the main thread after it is obtained, the queue is guarded by this instance, so the hand-off is
+ * safe. The preloaded views never attach to a window, post to a handler or touch the activity before
+ * obtained, and the shared {@link ItemViewPool} is synchronized. The uri icons and the texts to precompute
+ * start requests which live on main thread, so they are left out of the preload and applied when obtained. The views are styled with the theme
+ * passed to {@link #preload(Context, int, ToolbarSpec)}, and pooled as views of that theme.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/20 16:32
+ */
+public final class ToolbarPreloader {
+
+    private static final String TAG = ToolbarPreloader.class.getSimpleName();
+
+    /**
+     * The max count of prebuilt toolbars associated with one spec.
+     */
+    private static final int MAX_PRELOADED_COUNT = 3;
+    /**
+     * The max count of specs which have prebuilt toolbars, the least recently used one is dropped.
+     */
+    private static final int MAX_PRELOADED_SPECS = 4;
+
+    private static volatile ToolbarPreloader sInstance;
+
+    public static ToolbarPreloader getInstance() {
+        if (null == sInstance) {
+            synchronized (ToolbarPreloader.class) {
+                if (null == sInstance) {
+                    sInstance = new ToolbarPreloader();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    private final Map<ToolbarSpec, ArrayDeque<SToolbar>> mPreloaded =
+            new LinkedHashMap<ToolbarSpec, ArrayDeque<SToolbar>>(MAX_PRELOADED_SPECS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ToolbarSpec, ArrayDeque<SToolbar>> eldest) {
+                    return size() > MAX_PRELOADED_SPECS;
+                }
+            };
+    private final Executor mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "SToolbar-Preloader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ToolbarPreloader() {
+    }
+
+    /**
+     * Build a toolbar associated with the spec on background thread.
+     */
+    public void preload(@NonNull Context context, @NonNull ToolbarSpec spec) {
+        preload(context, 0, spec);
+    }
+
+    /**
+     * Build a toolbar associated with the spec on background thread.
+     *
+     * @param themeResId the theme of the activity which will use this toolbar, 0 means the theme of context.
+     */
+    public void preload(@NonNull Context context, @StyleRes int themeResId, @NonNull final ToolbarSpec spec) {
+        if (spec.hasCustomViews()) {
+            throw new IllegalArgumentException("The spec contains custom views cannot be preloaded.");
+        }
+        // Never hold the activity in background, it will be replaced when obtain.
+        Context appContext = context.getApplicationContext();
+        // Same as the activity declared without theme, it uses the theme of application.
+        final Context themedContext = new ItemViewPool.ThemedContext(appContext,
+                0 != themeResId ? themeResId : appContext.getApplicationInfo().theme);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ToolbarPreloader.this) {
+                    ArrayDeque<SToolbar> queue = mPreloaded.get(spec);
+                    if (null != queue && queue.size() >= MAX_PRELOADED_COUNT) {
+                        return;
+                    }
+                }
+                SToolbar toolbar;
+                try {
+                    toolbar = new SToolbar(new MutableContextWrapper(themedContext));
+                    spec.withoutMainThreadOptions().applyContentTo(toolbar);
+                } catch (RuntimeException e) {
+                    // Some view cannot be created off main thread, fallback to build it when obtain.
+                    Log.w(TAG, "Preload toolbar failed.", e);
+                    return;
+                }
+                synchronized (ToolbarPreloader.this) {
+                    ArrayDeque<SToolbar> queue = mPreloaded.get(spec);
+                    if (null == queue) {
+                        queue = new ArrayDeque<>(MAX_PRELOADED_COUNT);
+                        mPreloaded.put(spec, queue);
+                    }
+                    queue.offer(toolbar);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop all prebuilt toolbars.
+     */
+    public synchronized void clear() {
+        mPreloaded.clear();
+    }
+
+    /**
+     * Get the prebuilt toolbar associated with the spec, and switch it to the activity.
+     *
+     * @return null if there is no prebuilt toolbar ready.
+     */
+    @MainThread
+    @Nullable
+    SToolbar obtain(@NonNull Activity activity, @NonNull ToolbarSpec spec) {
+        SToolbar toolbar;
+        synchronized (this) {
+            ArrayDeque<SToolbar> queue = mPreloaded.get(spec);
+            toolbar = null != queue ? queue.poll() : null;
+            if (null != queue && queue.isEmpty()) {
+                mPreloaded.remove(spec);
+            }
+        }
+        if (null == toolbar) {
+            return null;
+        }
+        toolbar.rebaseContext(activity);
+        // Apply the parts left out of the preload, it does nothing if there is none.
+        toolbar.update(spec);
+        spec.applyWindowTo(toolbar);
+        return toolbar;
+    }
+
+}
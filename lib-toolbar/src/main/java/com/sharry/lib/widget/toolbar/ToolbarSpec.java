@@ -0,0 +1,323 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.annotation.ColorInt;
+import android.support.annotation.Dimension;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static android.support.annotation.Dimension.PX;
+
+/**
+ * The immutable toolbar configuration compiled by {@link Builder#buildSpec()}.
+ * <p>
+ * All dimensions and colors are resolved when compiling, so one spec can be applied to many
+ * SToolbar instances cheaply, it is safe to share it between threads.
+ * The resolved pixel values depend on the display density, use {@link #isCompatibleWith(Context)}
+ * to check the spec before reusing it on another configuration.
+ * <p>
+ * A live toolbar can switch to another spec by {@link SToolbar#update(ToolbarSpec)}, only the
+ * changed parts are applied.
+ * <p>
+ * A custom view can only be attached to one toolbar, so the spec which contains custom views
+ * can only be applied once.
+ *
+ * @author Sharry <a href="SharryChooCHN@Gmail.com">Contact me.</a>
+ * @version 1.0
+ * @since 2018/10/18 22:10
+ */
+public final class ToolbarSpec {
+
+    static final int INVALIDATE = -1;
+
+    /*
+       Resolved values.
+     */
+    final float density;
+    final Style statusBarStyle;
+    @Dimension(unit = PX)
+    final int minimumHeight;
+    @Dimension(unit = PX)
+    final int subItemInterval;
+    final int backgroundDrawableResId;
+    @ColorInt
+    final int backgroundColor;
+    @Dimension(unit = PX)
+    final int dividingLineHeight;
+    @ColorInt
+    final int dividingLineColor;
+    final int titleGravity;
+    final boolean menuDrawMode;
+
+    /*
+       Item descriptors.
+     */
+    final TextViewOptions titleTextOps;
+    final ImageViewOptions titleImageOps;
+    final List<Item> titleItems;
+    final List<Item> leftMenuItems;
+    final List<Item> rightMenuItems;
+
+    ToolbarSpec(float density, Style statusBarStyle, int minimumHeight, int subItemInterval,
+                int backgroundDrawableResId, int backgroundColor, int dividingLineHeight,
+                int dividingLineColor, int titleGravity, boolean menuDrawMode,
+                @Nullable TextViewOptions titleTextOps, @Nullable ImageViewOptions titleImageOps,
+                @NonNull List<Item> titleItems, @NonNull List<Item> leftMenuItems,
+                @NonNull List<Item> rightMenuItems) {
+        this.density = density;
+        this.statusBarStyle = statusBarStyle;
+        this.minimumHeight = minimumHeight;
+        this.subItemInterval = subItemInterval;
+        this.backgroundDrawableResId = backgroundDrawableResId;
+        this.backgroundColor = backgroundColor;
+        this.dividingLineHeight = dividingLineHeight;
+        this.dividingLineColor = dividingLineColor;
+        this.titleGravity = titleGravity;
+        this.menuDrawMode = menuDrawMode;
+        // Copy the options, so the spec won't be changed by the origin options builder.
+        this.titleTextOps = null != titleTextOps ? titleTextOps.newBuilder().build() : null;
+        this.titleImageOps = null != titleImageOps ? titleImageOps.newBuilder().build() : null;
+        this.titleItems = Collections.unmodifiableList(new ArrayList<>(titleItems));
+        this.leftMenuItems = Collections.unmodifiableList(new ArrayList<>(leftMenuItems));
+        this.rightMenuItems = Collections.unmodifiableList(new ArrayList<>(rightMenuItems));
+    }
+
+    /**
+     * Whether the resolved pixel values of this spec are valid for the context.
+     */
+    public boolean isCompatibleWith(@NonNull Context context) {
+        return density == context.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Instantiation SToolbar with this spec.
+     */
+    public SToolbar build(@NonNull Context context) {
+        SToolbar toolbar = new SToolbar(context);
+        applyTo(toolbar);
+        return toolbar;
+    }
+
+    /**
+     * Instantiation SToolbar with this spec, and then add it to the top of activity content.
+     * <p>
+     * The toolbar preloaded by {@link ToolbarPreloader} is used if present.
+     */
+    public SToolbar apply(@NonNull Activity activity) {
+        SToolbar toolbar = ToolbarPreloader.getInstance().obtain(activity, this);
+        if (null == toolbar) {
+            toolbar = build(activity);
+        }
+        return new Builder(activity).attach(toolbar);
+    }
+
+    /**
+     * Instantiation SToolbar with this spec, and then add it to the top of content view.
+     */
+    public SToolbar apply(@NonNull View contentView) {
+        return new Builder(contentView).attach(build(contentView.getContext()));
+    }
+
+    /**
+     * Inject this spec to toolbar.
+     */
+    public void applyTo(@NonNull SToolbar toolbar) {
+        applyContentTo(toolbar);
+        applyWindowTo(toolbar);
+    }
+
+    /**
+     * Whether this spec contains custom views, which cannot be shared between toolbars.
+     */
+    boolean hasCustomViews() {
+        for (Item item : titleItems) {
+            if (Item.TYPE_VIEW == item.type) {
+                return true;
+            }
+        }
+        for (Item item : leftMenuItems) {
+            if (Item.TYPE_VIEW == item.type) {
+                return true;
+            }
+        }
+        for (Item item : rightMenuItems) {
+            if (Item.TYPE_VIEW == item.type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the spec which is safe to apply off the main thread, the uri icons and the texts to precompute
+     * are stripped, because their requests live on main thread. The stripped parts are applied later by
+     * {@link SToolbar#update(ToolbarSpec)} with this spec on main thread.
+     */
+    ToolbarSpec withoutMainThreadOptions() {
+        if (!needsMainThread(titleTextOps) && !needsMainThread(titleImageOps)
+                && !hasMainThreadItems(leftMenuItems) && !hasMainThreadItems(rightMenuItems)) {
+            return this;
+        }
+        return new ToolbarSpec(density, statusBarStyle, minimumHeight, subItemInterval,
+                backgroundDrawableResId, backgroundColor, dividingLineHeight, dividingLineColor,
+                titleGravity, menuDrawMode, (TextViewOptions) stripMainThreadOptions(titleTextOps),
+                (ImageViewOptions) stripMainThreadOptions(titleImageOps), titleItems,
+                stripMainThreadItems(leftMenuItems), stripMainThreadItems(rightMenuItems));
+    }
+
+    private static boolean hasMainThreadItems(List<Item> items) {
+        for (Item item : items) {
+            if (needsMainThread(item.ops)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Item> stripMainThreadItems(List<Item> items) {
+        List<Item> result = new ArrayList<>(items.size());
+        for (Item item : items) {
+            result.add(needsMainThread(item.ops)
+                    ? new Item(item.type, item.view, stripMainThreadOptions(item.ops)) : item);
+        }
+        return result;
+    }
+
+    private static boolean needsMainThread(@Nullable Options ops) {
+        return (ops instanceof TextViewOptions && ((TextViewOptions) ops).precomputeText)
+                || (ops instanceof ImageViewOptions && null != ((ImageViewOptions) ops).uri);
+    }
+
+    private static Options stripMainThreadOptions(@Nullable Options ops) {
+        if (!needsMainThread(ops)) {
+            return ops;
+        }
+        if (ops instanceof TextViewOptions) {
+            return ((TextViewOptions) ops).newBuilder().setPrecomputeText(false).build();
+        }
+        // The drawable res is the placeholder of uri icon.
+        return ((ImageViewOptions) ops).newBuilder().setUri(null).build();
+    }
+
+    /**
+     * Inject the parts which associated with the window, it must be invoked on main thread.
+     */
+    void applyWindowTo(@NonNull SToolbar toolbar) {
+        if (Style.DEFAULT != statusBarStyle) {
+            toolbar.setStatusBarStyle(statusBarStyle);
+        }
+    }
+
+    /**
+     * Inject the parts which only associated with the toolbar itself, it is safe to invoke it
+     * on a background thread before the toolbar attached.
+     */
+    void applyContentTo(@NonNull SToolbar toolbar) {
+        toolbar.beginUpdate();
+        toolbar.onSpecApplying();
+        // 1. Set layout params associated with the toolbar.
+        toolbar.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        // 2. Set arguments.
+        if (INVALIDATE != minimumHeight) {
+            toolbar.setMinimumHeight(minimumHeight);
+        }
+        if (INVALIDATE != subItemInterval) {
+            toolbar.setSubItemInterval(subItemInterval);
+        }
+        toolbar.setBackgroundColor(backgroundColor);
+        if (INVALIDATE != backgroundDrawableResId) {
+            toolbar.setBackgroundDrawableRes(backgroundDrawableResId);
+        }
+        toolbar.setDividingLineColor(dividingLineColor);
+        toolbar.setDividingLinePixelHeight(dividingLineHeight);
+        // 3. Setup title items associated with the toolbar.
+        toolbar.setTitleGravity(titleGravity);
+        if (null != titleTextOps) {
+            toolbar.setTitleText(titleTextOps);
+        }
+        if (null != titleImageOps) {
+            toolbar.setTitleImage(titleImageOps);
+        }
+        for (Item item : titleItems) {
+            toolbar.addTitleView(item.view, item.ops);
+        }
+        // 4. Add menu items associated with the toolbar.
+        toolbar.setMenuDrawMode(menuDrawMode);
+        for (Item item : leftMenuItems) {
+            switch (item.type) {
+                case Item.TYPE_TEXT:
+                    toolbar.addLeftMenuText((TextViewOptions) item.ops);
+                    break;
+                case Item.TYPE_IMAGE:
+                    toolbar.addLeftMenuImage((ImageViewOptions) item.ops);
+                    break;
+                default:
+                    toolbar.addLeftMenuView(item.view, item.ops);
+                    break;
+            }
+        }
+        for (Item item : rightMenuItems) {
+            switch (item.type) {
+                case Item.TYPE_TEXT:
+                    toolbar.addRightMenuText((TextViewOptions) item.ops);
+                    break;
+                case Item.TYPE_IMAGE:
+                    toolbar.addRightMenuImage((ImageViewOptions) item.ops);
+                    break;
+                default:
+                    toolbar.addRightMenuView(item.view, item.ops);
+                    break;
+            }
+        }
+        toolbar.onSpecApplied(this);
+        toolbar.endUpdate();
+    }
+
+    /**
+     * The item descriptor which type has been resolved when compiling.
+     */
+    static final class Item {
+
+        static final int TYPE_VIEW = 0;
+        static final int TYPE_TEXT = 1;
+        static final int TYPE_IMAGE = 2;
+
+        final int type;
+        final View view;
+        final Options ops;
+
+        private Item(int type, View view, Options ops) {
+            this.type = type;
+            this.view = view;
+            this.ops = ops;
+        }
+
+        /**
+         * Resolve the item type, throw exception when the item cannot be created.
+         */
+        static Item of(@Nullable View view, @Nullable Options ops) {
+            if (null != view) {
+                return new Item(TYPE_VIEW, view, ops);
+            } else if (ops instanceof TextViewOptions) {
+                return new Item(TYPE_TEXT, null, ((TextViewOptions) ops).newBuilder().build());
+            } else if (ops instanceof ImageViewOptions) {
+                return new Item(TYPE_IMAGE, null, ((ImageViewOptions) ops).newBuilder().build());
+            } else if (null != ops) {
+                throw new NullPointerException("U setup ops cannot support auto generate view, " +
+                        " option is :" + ops);
+            } else {
+                throw new NullPointerException("Please ensure ops or view at least one nonnull");
+            }
+        }
+
+    }
+
+}
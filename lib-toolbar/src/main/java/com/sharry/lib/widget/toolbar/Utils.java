@@ -1,10 +1,17 @@
 package com.sharry.lib.widget.toolbar;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.os.Build;
 import android.util.TypedValue;
+import android.view.View;
 import android.view.ViewGroup;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 
 /**
@@ -73,6 +80,30 @@ class Utils {
         return (int) (px / scale + 0.5f);
     }
 
+    /**
+     * Set or clear the click listener, the view isn't clickable after the listener cleared.
+     */
+    static void setOnClickListener(View view, View.OnClickListener listener) {
+        view.setOnClickListener(listener);
+        if (null == listener) {
+            view.setClickable(false);
+        }
+    }
+
+    /**
+     * Find the activity which the context wrapped, the context may be wrapped by
+     * ContextThemeWrapper or MutableContextWrapper.
+     */
+    static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
     /**
      * Get action bar heightExcludePadding associated with the app.
      */
@@ -94,4 +125,31 @@ class Utils {
                 .getDimensionPixelSize(resourceId) : 0;
     }
 
+    /**
+     * Get the SHA-1 hex of value, it can be used as a file name.
+     */
+    static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return String.valueOf(value.hashCode());
+        }
+    }
+
+    static void closeQuietly(Closeable closeable) {
+        if (null == closeable) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Ignore.
+        }
+    }
+
 }
@@ -82,6 +82,38 @@ public class ViewOptions implements Options<View> {
         }
     }
 
+    /**
+     * Apply the fields differ from the old options which completed the view.
+     */
+    void update(View view, ViewOptions old) {
+        if (visibility != old.visibility) {
+            view.setVisibility(visibility);
+        }
+        boolean paddingChanged = paddingLeft != old.paddingLeft || paddingTop != old.paddingTop
+                || paddingRight != old.paddingRight || paddingBottom != old.paddingBottom;
+        if (paddingChanged) {
+            view.setPadding(paddingLeft, paddingTop, paddingRight, paddingBottom);
+        }
+        if (paddingChanged || widthExcludePadding != old.widthExcludePadding
+                || heightExcludePadding != old.heightExcludePadding) {
+            int validWidth = Utils.isLayoutParamsSpecialValue(widthExcludePadding) ? widthExcludePadding :
+                    widthExcludePadding + view.getPaddingLeft() + view.getPaddingRight();
+            int validHeight = Utils.isLayoutParamsSpecialValue(heightExcludePadding) ? heightExcludePadding :
+                    heightExcludePadding + view.getPaddingTop() + view.getPaddingBottom();
+            ViewGroup.LayoutParams params = view.getLayoutParams();
+            if (null == params) {
+                params = new ViewGroup.LayoutParams(validWidth, validHeight);
+            } else {
+                params.width = validWidth;
+                params.height = validHeight;
+            }
+            view.setLayoutParams(params);
+        }
+        if (listener != old.listener) {
+            Utils.setOnClickListener(view, listener);
+        }
+    }
+
     /**
      * Copy values from other instance.
      */
@@ -0,0 +1,104 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.Window;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verify the system ui controller shared per window only writes the state which differs.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 19:35
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class AppBarHelperTest {
+
+    private static final int FLAGS_DRAW_UNDER_STATUS_BAR = View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+            | View.SYSTEM_UI_FLAG_LAYOUT_STABLE;
+
+    private Activity mActivity;
+    private Window mWindow;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mWindow = mActivity.getWindow();
+    }
+
+    @Test
+    public void with_sharesOneInstancePerWindow() {
+        AppBarHelper helper = AppBarHelper.with(mActivity);
+        assertSame(helper, AppBarHelper.with(mActivity));
+        Activity other = Robolectric.buildActivity(Activity.class).setup().get();
+        assertNotSame(helper, AppBarHelper.with(other));
+    }
+
+    @Test
+    public void apply_writesTargetState() {
+        AppBarHelper.with(mActivity).setStatusBarStyle(Style.TRANSPARENT).apply();
+        assertEquals(FLAGS_DRAW_UNDER_STATUS_BAR, mWindow.getDecorView().getSystemUiVisibility());
+        assertEquals(Color.TRANSPARENT, mWindow.getStatusBarColor());
+    }
+
+    @Test
+    public void apply_skipsUnchangedState() {
+        AppBarHelper helper = AppBarHelper.with(mActivity);
+        helper.setStatusBarStyle(Style.TRANSPARENT).apply();
+        // Changed behind the helper, nothing pending, so the helper must not write again.
+        mWindow.getDecorView().setSystemUiVisibility(View.SYSTEM_UI_FLAG_LAYOUT_STABLE);
+        mWindow.setStatusBarColor(Color.RED);
+        helper.apply();
+        assertEquals(View.SYSTEM_UI_FLAG_LAYOUT_STABLE, mWindow.getDecorView().getSystemUiVisibility());
+        assertEquals(Color.RED, mWindow.getStatusBarColor());
+    }
+
+    @Test
+    public void tintStatusBar_keepsFlags() {
+        AppBarHelper helper = AppBarHelper.with(mActivity);
+        helper.setStatusBarStyle(Style.TRANSPARENT).apply();
+        helper.tintStatusBar(Color.BLUE).apply();
+        assertEquals(FLAGS_DRAW_UNDER_STATUS_BAR, mWindow.getDecorView().getSystemUiVisibility());
+        assertEquals(Color.BLUE, mWindow.getStatusBarColor());
+    }
+
+    @Test
+    public void setStatusBarStyle_leavesAllBarsHide() {
+        TypedValue primaryDark = new TypedValue();
+        mActivity.getTheme().resolveAttribute(android.R.attr.colorPrimaryDark, primaryDark, true);
+        AppBarHelper helper = AppBarHelper.with(mActivity);
+        helper.setAllBarsHide().apply();
+        helper.setStatusBarStyle(Style.DEFAULT).apply();
+        assertEquals(View.SYSTEM_UI_FLAG_LAYOUT_STABLE, mWindow.getDecorView().getSystemUiVisibility());
+        assertEquals(primaryDark.data, mWindow.getStatusBarColor());
+    }
+
+    @Test
+    public void batchedStyles_appliedWhenBatchEnded() {
+        SToolbar toolbar = newBuilder(mActivity).build();
+        int flags = mWindow.getDecorView().getSystemUiVisibility();
+        toolbar.beginUpdate();
+        toolbar.setStatusBarStyle(Style.TRANSLUCENCE);
+        toolbar.setStatusBarStyle(Style.TRANSPARENT);
+        assertEquals(flags, mWindow.getDecorView().getSystemUiVisibility());
+        toolbar.endUpdate();
+        assertEquals(FLAGS_DRAW_UNDER_STATUS_BAR, mWindow.getDecorView().getSystemUiVisibility());
+        assertEquals(Color.TRANSPARENT, mWindow.getStatusBarColor());
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Color;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verify the builder compiles the spec once and drops it when any option changed.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 19:10
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class BuilderSpecTest {
+
+    private Builder mBuilder;
+
+    @Before
+    public void setUp() {
+        mBuilder = newBuilder(newContext())
+                .setTitleText("Title")
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("right")
+                        .build());
+    }
+
+    @Test
+    public void buildSpec_reusedWhileUnchanged() {
+        ToolbarSpec spec = mBuilder.buildSpec();
+        assertSame(spec, mBuilder.buildSpec());
+        mBuilder.build();
+        assertSame(spec, mBuilder.buildSpec());
+    }
+
+    @Test
+    public void buildSpec_droppedBySetter() {
+        ToolbarSpec spec = mBuilder.buildSpec();
+        mBuilder.setBackgroundColor(Color.BLACK);
+        ToolbarSpec changed = mBuilder.buildSpec();
+        assertNotSame(spec, changed);
+        assertEquals(Color.BLACK, changed.backgroundColor);
+    }
+
+    @Test
+    public void buildSpec_droppedByAddedItem() {
+        ToolbarSpec spec = mBuilder.buildSpec();
+        mBuilder.addRightMenuText(TextViewOptions.Builder()
+                .setText("more")
+                .build());
+        ToolbarSpec changed = mBuilder.buildSpec();
+        assertNotSame(spec, changed);
+        assertEquals(2, changed.rightMenuItems.size());
+    }
+
+}
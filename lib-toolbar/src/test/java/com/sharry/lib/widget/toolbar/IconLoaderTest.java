@@ -0,0 +1,235 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import com.sharry.toolbar.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the icons of remote uri are cached in memory and written through the disk cache,
+ * and the requests are paused while their views detached.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 21:20
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class IconLoaderTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final int ICON_SIZE = 96;
+    private static final String DISK_CACHE_DIR = "stoolbar-icons";
+    /**
+     * The icon loader is shared, every test loads its own uris.
+     */
+    private static final AtomicInteger sUriIndex = new AtomicInteger();
+
+    private Activity mActivity;
+    private LocalFileFetcher mFetcher;
+
+    @Before
+    public void setUp() throws IOException {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        File source = File.createTempFile("icon", ".png");
+        source.deleteOnExit();
+        ImageIO.write(new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB), "png", source);
+        mFetcher = new LocalFileFetcher(source);
+        IconLoader.getInstance().setFetcher(mFetcher);
+    }
+
+    @After
+    public void tearDown() {
+        mFetcher.unblock();
+        IconLoader.getInstance().setFetcher(null);
+    }
+
+    @Test
+    public void into_writesThroughDiskCache() throws InterruptedException {
+        Uri uri = newUri();
+        ImageView imageView = new ImageView(mActivity);
+        IconLoader.getInstance().into(imageView, newOptions(uri, ICON_SIZE));
+        awaitLoaded(imageView);
+        assertEquals(1, mFetcher.getFetchCount(uri));
+        File dir = new File(mActivity.getCacheDir(), DISK_CACHE_DIR);
+        assertTrue(new File(dir, Utils.sha1(uri.toString())).isFile());
+        // The temp file is renamed to the cached one.
+        for (String name : dir.list()) {
+            assertFalse(name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void into_loadedIconHitsMemory() throws InterruptedException {
+        Uri uri = newUri();
+        ImageView imageView = new ImageView(mActivity);
+        IconLoader.getInstance().into(imageView, newOptions(uri, ICON_SIZE));
+        awaitLoaded(imageView);
+        ImageView other = new ImageView(mActivity);
+        IconLoader.getInstance().into(other, newOptions(uri, ICON_SIZE));
+        // Set synchronously without a request.
+        assertNull(other.getTag(R.id.lib_toolbar_tag_icon_request));
+        assertTrue(other.getDrawable() instanceof BitmapDrawable);
+        assertNotNull(IconLoader.getInstance().getCached(mActivity, newOptions(uri, ICON_SIZE)));
+    }
+
+    @Test
+    public void into_otherSizeHitsDisk() throws InterruptedException {
+        Uri uri = newUri();
+        ImageView imageView = new ImageView(mActivity);
+        IconLoader.getInstance().into(imageView, newOptions(uri, ICON_SIZE));
+        awaitLoaded(imageView);
+        ImageView smaller = new ImageView(mActivity);
+        IconLoader.getInstance().into(smaller, newOptions(uri, ICON_SIZE / 2));
+        awaitLoaded(smaller);
+        assertEquals(1, mFetcher.getFetchCount(uri));
+    }
+
+    @Test
+    public void request_pausedWhileDetached() throws InterruptedException {
+        FrameLayout content = new FrameLayout(mActivity);
+        mActivity.setContentView(content);
+        // Occupy the loader threads, so the request stays queued.
+        mFetcher.block();
+        for (int i = 0; i < 2; i++) {
+            IconLoader.getInstance().into(new ImageView(mActivity), newOptions(newUri(), ICON_SIZE));
+        }
+        assertTrue(mFetcher.awaitBlocked(2));
+        Uri uri = newUri();
+        ImageView imageView = new ImageView(mActivity);
+        content.addView(imageView);
+        IconLoader.getInstance().into(imageView, newOptions(uri, ICON_SIZE));
+        content.removeView(imageView);
+        mFetcher.unblock();
+        // Load another icon after the blockers, the paused request would have run before it.
+        ImageView probe = new ImageView(mActivity);
+        IconLoader.getInstance().into(probe, newOptions(newUri(), ICON_SIZE));
+        awaitLoaded(probe);
+        assertEquals(0, mFetcher.getFetchCount(uri));
+        assertNotNull(imageView.getTag(R.id.lib_toolbar_tag_icon_request));
+        // Resumed when attached again.
+        content.addView(imageView);
+        awaitLoaded(imageView);
+        assertEquals(1, mFetcher.getFetchCount(uri));
+    }
+
+    private static Uri newUri() {
+        return Uri.parse("https://example.com/icon-" + sUriIndex.incrementAndGet() + ".png");
+    }
+
+    private static ImageViewOptions newOptions(Uri uri, int size) {
+        return ImageViewOptions.Builder()
+                .setUri(uri)
+                .setWidthWithoutPadding(size)
+                .setHeightWithoutPadding(size)
+                .build();
+    }
+
+    private static void awaitLoaded(ImageView imageView) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (null != imageView.getTag(R.id.lib_toolbar_tag_icon_request)) {
+            assertTrue("The icon isn't loaded in time.", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            Robolectric.flushForegroundThreadScheduler();
+        }
+        assertTrue(imageView.getDrawable() instanceof BitmapDrawable);
+    }
+
+    /**
+     * Fetch every uri from a local file, the fetches can be blocked to hold the loader threads.
+     */
+    private static final class LocalFileFetcher implements IconFetcher {
+
+        private final File mSource;
+        private final Map<Uri, AtomicInteger> mFetchCounts = new ConcurrentHashMap<>();
+        private final AtomicInteger mBlockedCount = new AtomicInteger();
+        private volatile CountDownLatch mGate;
+
+        LocalFileFetcher(File source) {
+            mSource = source;
+        }
+
+        @NonNull
+        @Override
+        public InputStream fetch(@NonNull Context context, @NonNull Uri uri) throws IOException {
+            CountDownLatch gate = mGate;
+            if (null != gate) {
+                mBlockedCount.incrementAndGet();
+                try {
+                    gate.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            AtomicInteger count = mFetchCounts.get(uri);
+            if (null == count) {
+                count = new AtomicInteger();
+                mFetchCounts.put(uri, count);
+            }
+            count.incrementAndGet();
+            return new FileInputStream(mSource);
+        }
+
+        int getFetchCount(Uri uri) {
+            AtomicInteger count = mFetchCounts.get(uri);
+            return null == count ? 0 : count.get();
+        }
+
+        void block() {
+            mGate = new CountDownLatch(1);
+        }
+
+        boolean awaitBlocked(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (mBlockedCount.get() < count) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+            return true;
+        }
+
+        void unblock() {
+            CountDownLatch gate = mGate;
+            mGate = null;
+            if (null != gate) {
+                gate.countDown();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the item views are only reused within the theme which styled them, and come back clean.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 18:10
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class ItemViewPoolTest {
+
+    private static final int THEME = android.support.v7.appcompat.R.style.Theme_AppCompat_Light_NoActionBar;
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        ItemViewPool.getInstance().clear();
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @After
+    public void tearDown() {
+        ItemViewPool.getInstance().clear();
+    }
+
+    @Test
+    public void release_resetsStateSetByOptions() {
+        Context context = new ContextThemeWrapper(mActivity, THEME);
+        TextView textView = ItemViewPool.getInstance().obtainTextView(context);
+        textView.setId(android.R.id.text1);
+        textView.setEnabled(false);
+        textView.setContentDescription("menu");
+        ItemViewPool.getInstance().release(textView);
+        TextView recycled = ItemViewPool.getInstance().obtainTextView(context);
+        assertSame(textView, recycled);
+        assertEquals(View.NO_ID, recycled.getId());
+        assertTrue(recycled.isEnabled());
+        assertNull(recycled.getContentDescription());
+    }
+
+    @Test
+    public void obtain_keepsViewsOfOverlaysApart() {
+        // Same theme resource, but each wrapper owns its theme which may be overlaid.
+        Context context = new ContextThemeWrapper(mActivity, THEME);
+        Context overlay = new ContextThemeWrapper(mActivity, THEME);
+        TextView textView = ItemViewPool.getInstance().obtainTextView(context);
+        ItemViewPool.getInstance().release(textView);
+        assertNotSame(textView, ItemViewPool.getInstance().obtainTextView(overlay));
+        assertSame(textView, ItemViewPool.getInstance().obtainTextView(context));
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Color;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the right menu items collapse into the overflow menu from the lowest priority as the toolbar
+ * narrows, and come back when it widens.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 20:15
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class OverflowMenuTest {
+
+    private static final int MIN_WIDTH = 8;
+    private static final int WIDTH_STEP = 4;
+
+    private SToolbar mToolbar;
+    private View mHighView;
+    private View mLowView;
+    private View mMiddleView;
+    private View mPinnedView;
+
+    @Before
+    public void setUp() {
+        mToolbar = newBuilder(newContext())
+                .setTitleText("Title")
+                .addRightMenuText(newMenuOptions("High priority", 3))
+                .addRightMenuText(newMenuOptions("Low priority", 1))
+                .addRightMenuText(newMenuOptions("Middle priority", 2))
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("Pinned")
+                        .build())
+                .build();
+        mHighView = mToolbar.getRightMenuView(0);
+        mLowView = mToolbar.getRightMenuView(1);
+        mMiddleView = mToolbar.getRightMenuView(2);
+        mPinnedView = mToolbar.getRightMenuView(3);
+    }
+
+    @Test
+    public void narrowing_collapsesLowestPriorityFirst() {
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        assertFalse(isCollapsed(mHighView) || isCollapsed(mLowView) || isCollapsed(mMiddleView));
+        int pinnedWidth = mPinnedView.getMeasuredWidth();
+        boolean collapsedOnce = false;
+        for (int width = TOOLBAR_WIDTH; width >= MIN_WIDTH; width -= WIDTH_STEP) {
+            measureAndLayout(mToolbar, width);
+            assertFalse(isCollapsed(mPinnedView));
+            assertTrue(!isCollapsed(mMiddleView) || isCollapsed(mLowView));
+            assertTrue(!isCollapsed(mHighView) || isCollapsed(mMiddleView));
+            if (!collapsedOnce && isCollapsed(mLowView)) {
+                collapsedOnce = true;
+                // The remaining items are measured again with the room freed.
+                assertEquals(pinnedWidth, mPinnedView.getMeasuredWidth());
+            }
+        }
+        assertTrue(isCollapsed(mHighView) && isCollapsed(mLowView) && isCollapsed(mMiddleView));
+    }
+
+    @Test
+    public void widening_restoresCollapsedItems() {
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        int highWidth = mHighView.getWidth();
+        measureAndLayout(mToolbar, MIN_WIDTH);
+        assertTrue(isCollapsed(mHighView));
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        assertFalse(isCollapsed(mHighView) || isCollapsed(mLowView) || isCollapsed(mMiddleView));
+        assertEquals(highWidth, mHighView.getWidth());
+    }
+
+    private static TextViewOptions newMenuOptions(String text, int priority) {
+        return TextViewOptions.Builder()
+                .setText(text)
+                .setTextColor(Color.BLACK)
+                .setPriority(priority)
+                .build();
+    }
+
+    /**
+     * The collapsed item is laid out empty, the right menu items never start at the left edge.
+     */
+    private static boolean isCollapsed(View view) {
+        return 0 == view.getLeft() && 0 == view.getRight();
+    }
+
+}
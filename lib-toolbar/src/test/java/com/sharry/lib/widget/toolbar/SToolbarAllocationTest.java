@@ -0,0 +1,171 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Verify the text-only and color-only updates of title allocate nothing beyond the text view itself.
+ * <p>
+ * The metrics keep disabled here, the requestLayout hook allocates a stack trace when recording origins.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 15:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SToolbarAllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 1000;
+    /**
+     * The tolerance of whole measurement, far less than one object per iteration.
+     */
+    private static final long SLACK_BYTES = 1024;
+    private static final String TITLE = "Title";
+    private static final String OTHER_TITLE = "Other title";
+
+    private com.sun.management.ThreadMXBean mThreadBean;
+    private SToolbar mToolbar;
+    private TextView mRawTextView;
+
+    @Before
+    public void setUp() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        Context context = newContext();
+        mToolbar = newBuilder(context)
+                .setTitleText(TITLE, 18, Color.BLACK)
+                .build();
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        // The raw text view configured as title, it is the baseline of the necessary allocations.
+        FrameLayout rawParent = new FrameLayout(context);
+        mRawTextView = new TextView(context);
+        TextViewOptions.Builder()
+                .setText(TITLE)
+                .setTextSize(18)
+                .setTextColor(Color.BLACK)
+                .build()
+                .completion(mRawTextView);
+        rawParent.addView(mRawTextView);
+        measureAndLayout(rawParent, TOOLBAR_WIDTH);
+    }
+
+    @Test
+    public void updateTitleText_sameTextAllocatesNothing() {
+        long baseline = measure(new Runnable() {
+            @Override
+            public void run() {
+                mRawTextView.getText();
+            }
+        });
+        long allocated = measure(new Runnable() {
+            @Override
+            public void run() {
+                mToolbar.updateTitleText(TITLE);
+            }
+        });
+        assertAllocatedAtMost(baseline, allocated);
+    }
+
+    @Test
+    public void updateTitleTextColor_sameColorAllocatesNothing() {
+        long baseline = measure(new Runnable() {
+            @Override
+            public void run() {
+                mRawTextView.getCurrentTextColor();
+            }
+        });
+        long allocated = measure(new Runnable() {
+            @Override
+            public void run() {
+                mToolbar.updateTitleTextColor(Color.BLACK);
+            }
+        });
+        assertAllocatedAtMost(baseline, allocated);
+    }
+
+    @Test
+    public void updateTitleText_newTextAllocatesAsTextView() {
+        long baseline = measure(new Runnable() {
+            int i;
+
+            @Override
+            public void run() {
+                mRawTextView.setText((i++ & 1) == 0 ? OTHER_TITLE : TITLE);
+            }
+        });
+        long allocated = measure(new Runnable() {
+            int i;
+
+            @Override
+            public void run() {
+                mToolbar.updateTitleText((i++ & 1) == 0 ? OTHER_TITLE : TITLE);
+            }
+        });
+        assertAllocatedAtMost(baseline, allocated);
+    }
+
+    @Test
+    public void updateTitleTextColor_newColorAllocatesAsTextView() {
+        long baseline = measure(new Runnable() {
+            int i;
+
+            @Override
+            public void run() {
+                mRawTextView.setTextColor((i++ & 1) == 0 ? Color.RED : Color.BLACK);
+            }
+        });
+        long allocated = measure(new Runnable() {
+            int i;
+
+            @Override
+            public void run() {
+                mToolbar.updateTitleTextColor((i++ & 1) == 0 ? Color.RED : Color.BLACK);
+            }
+        });
+        assertAllocatedAtMost(baseline, allocated);
+    }
+
+    /**
+     * Get the bytes allocated by the current thread within the iterations of action.
+     */
+    private long measure(Runnable action) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            action.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long start = mThreadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return mThreadBean.getThreadAllocatedBytes(threadId) - start;
+    }
+
+    private static void assertAllocatedAtMost(long baseline, long allocated) {
+        assertTrue("Allocated " + allocated + " bytes in " + ITERATIONS + " iterations, the baseline is "
+                + baseline + " bytes.", allocated <= baseline + SLACK_BYTES);
+    }
+
+}
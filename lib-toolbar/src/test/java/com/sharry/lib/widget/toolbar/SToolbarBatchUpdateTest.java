@@ -0,0 +1,102 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Color;
+import android.view.Gravity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verify the mutations within {@link SToolbar#beginUpdate()} and {@link SToolbar#endUpdate()} are
+ * collected, and only the last values are applied when the outermost batch ended.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 19:00
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SToolbarBatchUpdateTest {
+
+    private SToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mToolbar = newBuilder(newContext())
+                .setTitleText("Title")
+                .build();
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.setEnabled(true);
+        ToolbarMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarMetrics.setEnabled(false);
+        ToolbarMetrics.reset();
+    }
+
+    @Test
+    public void supersededTitles_onlyLastApplied() {
+        mToolbar.beginUpdate();
+        for (int i = 1; i <= 5; i++) {
+            mToolbar.updateTitleText("Title " + i);
+            mToolbar.updateTitleTextColor(0 == (i & 1) ? Color.RED : Color.BLUE);
+        }
+        // The deferred values are not visible within the batch.
+        assertEquals("Title", mToolbar.getTitleText().getText().toString());
+        mToolbar.endUpdate();
+        assertEquals("Title 5", mToolbar.getTitleText().getText().toString());
+        assertEquals(Color.BLUE, mToolbar.getTitleText().getCurrentTextColor());
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+    }
+
+    @Test
+    public void nestedBatches_applyWhenOutermostEnded() {
+        mToolbar.beginUpdate();
+        mToolbar.beginUpdate();
+        mToolbar.updateTitleText("Another title");
+        mToolbar.endUpdate();
+        assertEquals("Title", mToolbar.getTitleText().getText().toString());
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        mToolbar.endUpdate();
+        assertEquals("Another title", mToolbar.getTitleText().getText().toString());
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+    }
+
+    @Test
+    public void burstOfSetters_requestLayoutOnce() {
+        mToolbar.beginUpdate();
+        mToolbar.setTitleGravity(Gravity.START);
+        mToolbar.setMinimumHeight(200);
+        mToolbar.setDividingLineHeight(2);
+        for (int i = 0; i < 3; i++) {
+            mToolbar.addRightMenuText(TextViewOptions.Builder()
+                    .setText("menu " + i)
+                    .build());
+        }
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        mToolbar.endUpdate();
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        ToolbarMetrics.reset();
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_MEASURE));
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_LAYOUT));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void endUpdate_withoutBeginThrows() {
+        mToolbar.endUpdate();
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.v4.view.ViewCompat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Verify the draw pass only draws, it never mutates the view properties or requests layout.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 17:05
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SToolbarDrawPassTest {
+
+    private static final int DIVIDING_LINE_HEIGHT = 1;
+
+    private SToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mToolbar = newBuilder(newContext())
+                .setTitleText("Title")
+                .setDividingLineHeight(DIVIDING_LINE_HEIGHT)
+                .setDividingLineColor(Color.LTGRAY)
+                .build();
+        mToolbar.setPadding(16, 0, 24, 0);
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.setEnabled(true);
+        ToolbarMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarMetrics.setEnabled(false);
+        ToolbarMetrics.reset();
+    }
+
+    @Test
+    public void onDraw_mutatesNoProperties() {
+        float elevation = ViewCompat.getElevation(mToolbar);
+        float alpha = mToolbar.getAlpha();
+        float translationY = mToolbar.getTranslationY();
+        RecordingCanvas firstFrame = new RecordingCanvas();
+        RecordingCanvas secondFrame = new RecordingCanvas();
+        mToolbar.onDraw(firstFrame);
+        mToolbar.onDraw(secondFrame);
+        assertEquals(2, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_DRAW));
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        assertFalse(mToolbar.isLayoutRequested());
+        assertEquals(elevation, ViewCompat.getElevation(mToolbar), 0f);
+        assertEquals(alpha, mToolbar.getAlpha(), 0f);
+        assertEquals(translationY, mToolbar.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void onDraw_dividingLineStaysAtBottom() {
+        RecordingCanvas firstFrame = new RecordingCanvas();
+        RecordingCanvas secondFrame = new RecordingCanvas();
+        mToolbar.onDraw(firstFrame);
+        mToolbar.onDraw(secondFrame);
+        int lineHeight = Utils.dp2px(mToolbar.getContext(), DIVIDING_LINE_HEIGHT);
+        Rect expected = new Rect(mToolbar.getPaddingLeft(),
+                mToolbar.getHeight() - mToolbar.getPaddingBottom() - lineHeight,
+                mToolbar.getWidth() - mToolbar.getPaddingRight(),
+                mToolbar.getHeight() - mToolbar.getPaddingBottom());
+        assertEquals(1, firstFrame.rects.size());
+        assertEquals(expected, firstFrame.rects.get(0));
+        assertEquals(firstFrame.rects, secondFrame.rects);
+        assertEquals(Color.LTGRAY, firstFrame.colors.get(0).intValue());
+    }
+
+    /**
+     * The canvas records the rects drawn on it.
+     */
+    private static class RecordingCanvas extends Canvas {
+
+        final List<Rect> rects = new ArrayList<>();
+        final List<Integer> colors = new ArrayList<>();
+
+        @Override
+        public void drawRect(Rect rect, Paint paint) {
+            rects.add(new Rect(rect));
+            colors.add(paint.getColor());
+        }
+
+    }
+
+}
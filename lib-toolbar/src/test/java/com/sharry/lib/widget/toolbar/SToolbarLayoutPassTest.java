@@ -0,0 +1,186 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.CountingView;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The regression suite of the measure, layout and requestLayout passes of the representative toolbars.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 10:20
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SToolbarLayoutPassTest {
+
+    private static final int MENU_ID = android.R.id.text1;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = newContext();
+        ToolbarMetrics.setEnabled(true);
+        ToolbarMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarMetrics.setEnabled(false);
+        ToolbarMetrics.reset();
+    }
+
+    @Test
+    public void titleOnly_measuresAndLaysOutOncePerPass() {
+        SToolbar toolbar = newBuilder(mContext)
+                .setTitleText("Title")
+                .build();
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        toolbar.requestLayout();
+        ToolbarMetrics.reset();
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_MEASURE));
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_LAYOUT));
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+    }
+
+    @Test
+    public void backTitleAndMenus_specAppliedWithoutCountedRequestLayout() {
+        ToolbarSpec spec = newMenuBuilder().buildSpec();
+        SToolbar toolbar = new SToolbar(mContext);
+        ToolbarMetrics.reset();
+        spec.applyTo(toolbar);
+        // The whole spec is applied within a batch.
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_MEASURE));
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_LAYOUT));
+    }
+
+    @Test
+    public void customTitleView_measuredAndLaidOutOncePerPass() {
+        // Taller than the minimum height, so the MATCH_PARENT items are stretched.
+        CountingView titleView = new CountingView(mContext, 300, 1000);
+        CountingView stretchView = new CountingView(mContext, 60, 0);
+        SToolbar toolbar = newBuilder(mContext)
+                .setBackgroundColor(Color.WHITE)
+                .setSubItemInterval(10)
+                .addTitleView(titleView, new ViewOptions.Builder()
+                        .setPaddingTop(20)
+                        .setPaddingBottom(20)
+                        .build())
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .addRightMenuView(stretchView, new ViewOptions.Builder()
+                        .setHeightExcludePadding(ViewGroup.LayoutParams.MATCH_PARENT)
+                        .build())
+                .build();
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        titleView.resetCounts();
+        stretchView.resetCounts();
+        titleView.requestLayout();
+        stretchView.requestLayout();
+        ToolbarMetrics.reset();
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_MEASURE));
+        assertEquals(1, titleView.measureCount);
+        assertEquals(1, titleView.layoutCount);
+        // The MATCH_PARENT item is measured with the minimum height, then stretched to the row height.
+        assertEquals(2, stretchView.measureCount);
+        assertEquals(1, stretchView.layoutCount);
+    }
+
+    @Test
+    public void updateTitleText_sameTextRequestsNoLayout() {
+        SToolbar toolbar = newLaidOutMenuToolbar();
+        toolbar.updateTitleText("Title");
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+    }
+
+    @Test
+    public void updateTitleText_newTextRequestsLayoutOnce() {
+        SToolbar toolbar = newLaidOutMenuToolbar();
+        toolbar.updateTitleText("Another title");
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+    }
+
+    @Test
+    public void updateTitleTextColor_requestsNoLayout() {
+        SToolbar toolbar = newLaidOutMenuToolbar();
+        toolbar.updateTitleTextColor(Color.RED);
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        assertEquals(Color.RED, toolbar.getTitleText().getCurrentTextColor());
+    }
+
+    @Test
+    public void updateItem_colorOnlyRequestsNoLayout() {
+        SToolbar toolbar = newLaidOutMenuToolbar();
+        TextView menuView = toolbar.getItemView(MENU_ID);
+        assertTrue(toolbar.updateItem(MENU_ID, TextViewOptions.Builder()
+                .setText("right")
+                .setTextColor(Color.RED)
+                .build()));
+        assertSame(menuView, toolbar.getItemView(MENU_ID));
+        assertEquals(Color.RED, menuView.getCurrentTextColor());
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+    }
+
+    @Test
+    public void batchedUpdates_requestLayoutOnce() {
+        SToolbar toolbar = newLaidOutMenuToolbar();
+        toolbar.beginUpdate();
+        toolbar.updateTitleText("Another title");
+        toolbar.updateTitleTextColor(Color.RED);
+        toolbar.setDividingLineHeight(1);
+        toolbar.endUpdate();
+        // The pending title text is applied after the batch ended, its requestLayout is the only one.
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        ToolbarMetrics.reset();
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_MEASURE));
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_LAYOUT));
+    }
+
+    /**
+     * The back icon, title and two right menu items.
+     */
+    private Builder newMenuBuilder() {
+        return newBuilder(mContext)
+                .setTitleText("Title")
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setId(MENU_ID)
+                        .setText("right")
+                        .setTextColor(Color.BLACK)
+                        .build())
+                .addRightMenuImage(ImageViewOptions.Builder()
+                        .setDrawableResId(android.R.drawable.ic_menu_search)
+                        .build());
+    }
+
+    private SToolbar newLaidOutMenuToolbar() {
+        SToolbar toolbar = newMenuBuilder().build();
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.reset();
+        return toolbar;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Rect;
+import android.view.WindowInsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verify the status bar padding follows the dispatched insets, and is applied idempotently.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 19:20
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SToolbarStatusBarInsetTest {
+
+    private static final int PADDING_TOP = 10;
+
+    private SToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mToolbar = newBuilder(newContext())
+                .setTitleText("Title")
+                .build();
+        mToolbar.setPadding(0, PADDING_TOP, 0, 0);
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.setEnabled(true);
+        ToolbarMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarMetrics.setEnabled(false);
+        ToolbarMetrics.reset();
+    }
+
+    @Test
+    public void setStatusBarStyle_appliesPaddingOnce() {
+        int statusBarHeight = Utils.getStatusBarHeight(mToolbar.getContext());
+        mToolbar.setStatusBarStyle(Style.TRANSPARENT);
+        assertEquals(PADDING_TOP + statusBarHeight, mToolbar.getPaddingTop());
+        mToolbar.setStatusBarStyle(Style.TRANSPARENT);
+        mToolbar.setStatusBarStyle(Style.TRANSLUCENCE);
+        assertEquals(PADDING_TOP + statusBarHeight, mToolbar.getPaddingTop());
+        mToolbar.setStatusBarStyle(Style.DEFAULT);
+        assertEquals(PADDING_TOP, mToolbar.getPaddingTop());
+    }
+
+    @Test
+    public void dispatchedInsets_replaceStatusBarPadding() {
+        mToolbar.setStatusBarStyle(Style.TRANSPARENT);
+        mToolbar.dispatchApplyWindowInsets(newTopInsets(100));
+        assertEquals(PADDING_TOP + 100, mToolbar.getPaddingTop());
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.reset();
+        // Same insets dispatched again, such as a relayout of window.
+        mToolbar.dispatchApplyWindowInsets(newTopInsets(100));
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        // Such as entered the multi-window mode.
+        mToolbar.dispatchApplyWindowInsets(newTopInsets(0));
+        assertEquals(PADDING_TOP, mToolbar.getPaddingTop());
+    }
+
+    @Test
+    public void dispatchedInsets_ignoredWhenNotDrawUnderStatusBar() {
+        mToolbar.dispatchApplyWindowInsets(newTopInsets(100));
+        assertEquals(PADDING_TOP, mToolbar.getPaddingTop());
+    }
+
+    /**
+     * The public constructor of WindowInsets is added in API 29, use the hidden one of the runtime.
+     */
+    private static WindowInsets newTopInsets(int top) {
+        try {
+            return WindowInsets.class.getConstructor(Rect.class).newInstance(new Rect(0, top, 0, 0));
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verify {@link SToolbar#update(ToolbarSpec)} only touches the parts which differ from the last spec.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 18:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SToolbarUpdateTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = newContext();
+        ToolbarMetrics.setEnabled(true);
+        ToolbarMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarMetrics.setEnabled(false);
+        ToolbarMetrics.reset();
+    }
+
+    @Test
+    public void update_equalSpecTouchesNothing() {
+        SToolbar toolbar = newLaidOutToolbar(newMenuSpec(Color.BLACK));
+        TextView menuView = toolbar.getRightMenuView(0);
+        toolbar.update(newMenuSpec(Color.BLACK));
+        assertSame(menuView, toolbar.getRightMenuView(0));
+        assertEquals(0, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        assertFalse(toolbar.isLayoutRequested());
+    }
+
+    @Test
+    public void update_changedColorRebindsSameView() {
+        SToolbar toolbar = newLaidOutToolbar(newMenuSpec(Color.BLACK));
+        TextView menuView = toolbar.getRightMenuView(0);
+        toolbar.update(newMenuSpec(Color.RED));
+        assertSame(menuView, toolbar.getRightMenuView(0));
+        assertEquals(Color.RED, menuView.getCurrentTextColor());
+    }
+
+    @Test
+    public void update_spansOnlyChangeIsApplied() {
+        TextViewOptions redOps = newSpannedTitleOps(Color.RED);
+        TextViewOptions blueOps = newSpannedTitleOps(Color.BLUE);
+        // The same characters, only the spans differ.
+        assertNotEquals(redOps, blueOps);
+        SToolbar toolbar = newLaidOutToolbar(newBuilder(mContext).setTitleText(redOps).buildSpec());
+        toolbar.update(newBuilder(mContext).setTitleText(blueOps).buildSpec());
+        CharSequence text = toolbar.getTitleText().getText();
+        ForegroundColorSpan[] spans = ((Spanned) text).getSpans(0, text.length(), ForegroundColorSpan.class);
+        assertEquals(1, spans.length);
+        assertEquals(Color.BLUE, spans[0].getForegroundColor());
+    }
+
+    private ToolbarSpec newMenuSpec(int menuTextColor) {
+        return newBuilder(mContext)
+                .setTitleText("Title")
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("right")
+                        .setTextColor(menuTextColor)
+                        .build())
+                .buildSpec();
+    }
+
+    private static TextViewOptions newSpannedTitleOps(int spanColor) {
+        SpannableString text = new SpannableString("Title");
+        text.setSpan(new ForegroundColorSpan(spanColor), 0, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        return TextViewOptions.Builder()
+                .setText(text)
+                .build();
+    }
+
+    private SToolbar newLaidOutToolbar(ToolbarSpec spec) {
+        SToolbar toolbar = new SToolbar(mContext);
+        spec.applyTo(toolbar);
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.reset();
+        return toolbar;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.graphics.Color;
+import android.text.Layout;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
+import android.util.TypedValue;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the fitted sizes are cached by text, width and paint, and the spanned texts are never cached.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 21:00
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class TextFitterTest {
+
+    private static final int MIN_TEXT_SIZE = 10;
+    private static final int MAX_TEXT_SIZE = 30;
+    private static final int WIDTH = 200;
+    private static final String TEXT = "The long localized title of toolbar";
+
+    private TextView mTextView;
+    private TextViewOptions mOps;
+
+    @Before
+    public void setUp() {
+        TextFitter.getInstance().clear();
+        mTextView = new TextView(newContext());
+        mOps = TextViewOptions.Builder()
+                .setText(TEXT)
+                .setAutoFitTextSize(MIN_TEXT_SIZE, MAX_TEXT_SIZE)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        TextFitter.getInstance().clear();
+    }
+
+    @Test
+    public void fit_shrinksTextBetweenSizes() {
+        mTextView.setText(TEXT);
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH);
+        float size = mTextView.getTextSize();
+        assertTrue(size >= sp(MIN_TEXT_SIZE) && size <= sp(MAX_TEXT_SIZE));
+        assertTrue(size == sp(MIN_TEXT_SIZE) || Layout.getDesiredWidth(TEXT, mTextView.getPaint()) <= WIDTH);
+    }
+
+    @Test
+    public void fit_sameTextAndWidthHitsCache() {
+        mTextView.setText(TEXT);
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH);
+        float size = mTextView.getTextSize();
+        // The text equals but is another instance, the cache is keyed by content.
+        mTextView.setText(new StringBuilder(TEXT).toString());
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH);
+        assertEquals(1, TextFitter.getInstance().getCachedCount());
+        assertEquals(size, mTextView.getTextSize(), 0f);
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH / 2);
+        assertEquals(2, TextFitter.getInstance().getCachedCount());
+    }
+
+    @Test
+    public void fit_paintParamsAreKeyed() {
+        mTextView.setText(TEXT);
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH);
+        mTextView.setLetterSpacing(0.2f);
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH);
+        assertEquals(2, TextFitter.getInstance().getCachedCount());
+    }
+
+    @Test
+    public void fit_spannedTextNotCached() {
+        SpannableString text = new SpannableString(TEXT);
+        text.setSpan(new ForegroundColorSpan(Color.RED), 0, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        mTextView.setText(text);
+        TextFitter.getInstance().fit(mTextView, mOps, WIDTH);
+        assertEquals(0, TextFitter.getInstance().getCachedCount());
+        float size = mTextView.getTextSize();
+        assertTrue(size >= sp(MIN_TEXT_SIZE) && size <= sp(MAX_TEXT_SIZE));
+    }
+
+    private float sp(int value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, value,
+                mTextView.getResources().getDisplayMetrics());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.content.Context;
+import android.widget.TextView;
+
+import com.sharry.toolbar.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the pending precomputed text is flushed before measure, and never overrides the text set later.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 20:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class TextPrecomputerTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final String TITLE = "The long localized title";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = newContext();
+    }
+
+    @Test
+    public void measure_flushesPendingTitle() {
+        SToolbar toolbar = newBuilder(mContext)
+                .setTitleText(TextViewOptions.Builder()
+                        .setText(TITLE)
+                        .setPrecomputeText(true)
+                        .build())
+                .build();
+        // Measured before the result is posted back to main thread.
+        measureAndLayout(toolbar, TOOLBAR_WIDTH);
+        TextView titleText = toolbar.getTitleText();
+        assertEquals(TITLE, titleText.getText().toString());
+        assertNull(titleText.getTag(R.id.lib_toolbar_tag_precompute));
+        assertTrue(titleText.getWidth() > 0);
+    }
+
+    @Test
+    public void setText_dropsPendingResult() throws InterruptedException {
+        TextView textView = new TextView(mContext);
+        TextPrecomputer.getInstance().precompute(textView, TITLE);
+        TextPrecomputer.getInstance().setText(textView, "Set later");
+        // The executor is serial, once the later task applied, the dropped one has finished as well.
+        TextView probe = new TextView(mContext);
+        TextPrecomputer.getInstance().precompute(probe, TITLE);
+        awaitApplied(probe);
+        assertEquals(TITLE, probe.getText().toString());
+        assertEquals("Set later", textView.getText().toString());
+    }
+
+    private static void awaitApplied(TextView textView) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (null != textView.getTag(R.id.lib_toolbar_tag_precompute)) {
+            assertTrue("The precomputed text isn't applied in time.", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            Robolectric.flushForegroundThreadScheduler();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the states pushed to the shared toolbar are restored by pop, and the content moves up
+ * while the toolbar is gone.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 22:05
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class ToolbarControllerTest {
+
+    private Activity mActivity;
+    private View mContent;
+    private ToolbarController mController;
+    private ToolbarSpec mHomeSpec;
+    private ToolbarSpec mDetailSpec;
+
+    @Before
+    public void setUp() {
+        ToolbarPreloader.getInstance().clear();
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mContent = new FrameLayout(mActivity);
+        mActivity.setContentView(mContent);
+        mController = ToolbarController.with(mActivity);
+        mHomeSpec = newBuilder(mActivity)
+                .setTitleText("Home")
+                .buildSpec();
+        mDetailSpec = newBuilder(mActivity)
+                .setTitleText("Detail")
+                .addBackIcon(android.R.drawable.ic_menu_revert)
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("Share")
+                        .setTextColor(Color.BLACK)
+                        .build())
+                .buildSpec();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarPreloader.getInstance().clear();
+    }
+
+    @Test
+    public void pushAndPop_restoresPreviousState() {
+        SToolbar toolbar = mController.push(mHomeSpec);
+        assertSame(toolbar, mController.getToolbar());
+        assertEquals("Home", toolbar.getTitleText().getText().toString());
+        assertSame(toolbar, mController.push(mDetailSpec));
+        assertEquals("Detail", toolbar.getTitleText().getText().toString());
+        assertEquals(2, mController.getStateCount());
+        assertTrue(mController.pop());
+        assertEquals("Home", toolbar.getTitleText().getText().toString());
+        assertEquals(1, mController.getStateCount());
+    }
+
+    @Test
+    public void remove_outOfOrderKeepsTopState() {
+        SToolbar toolbar = mController.push(mHomeSpec);
+        mController.push(mDetailSpec);
+        assertTrue(mController.remove(mHomeSpec));
+        assertFalse(mController.remove(mHomeSpec));
+        assertEquals(1, mController.getStateCount());
+        assertEquals("Detail", toolbar.getTitleText().getText().toString());
+    }
+
+    @Test
+    public void popLastState_clearsContentOffset() {
+        SToolbar toolbar = mController.push(mHomeSpec);
+        int offset = getTopMargin();
+        assertTrue(offset > 0);
+        assertEquals(toolbar.getMeasuredHeight(), offset);
+        assertTrue(mController.pop());
+        assertEquals(View.GONE, toolbar.getVisibility());
+        assertEquals(0, getTopMargin());
+        assertFalse(mController.pop());
+        // Shown again with the offset restored.
+        assertSame(toolbar, mController.push(mDetailSpec));
+        assertEquals(View.VISIBLE, toolbar.getVisibility());
+        assertEquals(offset, getTopMargin());
+    }
+
+    private int getTopMargin() {
+        return ((ViewGroup.MarginLayoutParams) mContent.getLayoutParams()).topMargin;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import com.sharry.toolbar.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the atlas is built and persisted when prepared first time, and loaded from the persisted
+ * files afterwards.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 21:45
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class ToolbarIconAtlasTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final String ATLAS_DIR = "stoolbar-atlas";
+
+    private Context mContext;
+    private File mAtlasDir;
+    private ImageViewOptions mRedIcon;
+    private ImageViewOptions mRedIconWithListener;
+    private ImageViewOptions mBlueIcon;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        // The atlas only serves the application theme.
+        mContext = new ItemViewPool.ThemedContext(activity, activity.getApplicationInfo().theme);
+        mAtlasDir = new File(mContext.getFilesDir(), ATLAS_DIR);
+        deleteAtlasFiles();
+        uninstallAtlas();
+        mRedIcon = newIcon(Color.RED).build();
+        // Equal to the red icon except the listener.
+        mRedIconWithListener = newIcon(Color.RED)
+                .setListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                    }
+                })
+                .build();
+        mBlueIcon = newIcon(Color.BLUE).build();
+    }
+
+    @After
+    public void tearDown() {
+        uninstallAtlas();
+        deleteAtlasFiles();
+    }
+
+    @Test
+    public void prepare_buildsThenLoadsPersistedAtlas() throws InterruptedException {
+        ToolbarIconAtlas.getInstance().prepare(mContext, mRedIcon, mRedIconWithListener, mBlueIcon);
+        AtlasDrawable red = awaitAtlasDrawable(mRedIcon);
+        AtlasDrawable blue = awaitAtlasDrawable(mBlueIcon);
+        Rect redRegion = getRegion(red);
+        Rect blueRegion = getRegion(blue);
+        assertFalse(redRegion.equals(blueRegion));
+        File bitmapFile = findAtlasFile(".png");
+        assertNotNull(findAtlasFile(".idx"));
+        assertEquals(2, mAtlasDir.list().length);
+        long lastModified = bitmapFile.lastModified();
+        // Installed again from the persisted files.
+        uninstallAtlas();
+        ToolbarIconAtlas.getInstance().prepare(mContext, mRedIcon, mRedIconWithListener, mBlueIcon);
+        assertEquals(redRegion, getRegion(awaitAtlasDrawable(mRedIcon)));
+        assertEquals(redRegion, getRegion(awaitAtlasDrawable(mRedIconWithListener)));
+        assertEquals(blueRegion, getRegion(awaitAtlasDrawable(mBlueIcon)));
+        assertTrue(bitmapFile.exists());
+        assertEquals(lastModified, bitmapFile.lastModified());
+        assertEquals(2, mAtlasDir.list().length);
+    }
+
+    private static ImageViewOptions.Builder newIcon(int tintColor) {
+        return ImageViewOptions.Builder()
+                .setDrawableResId(R.drawable.lib_toolbar_icon_overflow)
+                .setTintColor(tintColor);
+    }
+
+    private AtlasDrawable awaitAtlasDrawable(ImageViewOptions ops) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            Drawable drawable = IconCache.getInstance().obtain(mContext, ops);
+            if (drawable instanceof AtlasDrawable) {
+                return (AtlasDrawable) drawable;
+            }
+            assertTrue("The atlas isn't installed in time.", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static Rect getRegion(AtlasDrawable drawable) {
+        return ((AtlasDrawable.State) drawable.getConstantState()).region;
+    }
+
+    private File findAtlasFile(String suffix) {
+        File[] files = mAtlasDir.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            if (file.getName().endsWith(suffix)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private void uninstallAtlas() {
+        IconCache.getInstance().installAtlas(mContext.getResources(), 0,
+                Collections.<ImageViewOptions>emptyList(), Collections.<Rect>emptyList(),
+                Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+    }
+
+    private void deleteAtlasFiles() {
+        File[] files = mAtlasDir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+}
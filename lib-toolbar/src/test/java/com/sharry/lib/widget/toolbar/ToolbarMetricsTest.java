@@ -0,0 +1,64 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.view.Gravity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.TOOLBAR_WIDTH;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.measureAndLayout;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the requestLayout origins are only recorded on demand.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 19:55
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class ToolbarMetricsTest {
+
+    private SToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mToolbar = newBuilder(newContext())
+                .setTitleText("Title")
+                .build();
+        measureAndLayout(mToolbar, TOOLBAR_WIDTH);
+        ToolbarMetrics.setEnabled(true);
+        ToolbarMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarMetrics.setRecordRequestLayoutOrigins(false);
+        ToolbarMetrics.setEnabled(false);
+        ToolbarMetrics.reset();
+    }
+
+    @Test
+    public void requestLayout_countedWithoutOrigins() {
+        mToolbar.setTitleGravity(Gravity.LEFT | Gravity.TOP);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        assertTrue(ToolbarMetrics.getRequestLayoutOrigins().isEmpty());
+    }
+
+    @Test
+    public void requestLayout_originRecordedOnDemand() {
+        ToolbarMetrics.setRecordRequestLayoutOrigins(true);
+        mToolbar.setTitleGravity(Gravity.LEFT | Gravity.TOP);
+        assertEquals(1, ToolbarMetrics.getCount(ToolbarMetrics.EVENT_REQUEST_LAYOUT));
+        assertEquals(Integer.valueOf(1), ToolbarMetrics.getRequestLayoutOrigins().get("SToolbar#setTitleGravity"));
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.net.Uri;
+
+import com.sharry.toolbar.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sharry.lib.widget.toolbar.ToolbarTestHelper.newBuilder;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the preloaded toolbar leaves the main thread options out, and is switched to the activity
+ * entirely when obtained.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 19:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class ToolbarPreloaderTest {
+
+    private static final long PRELOAD_TIMEOUT_MILLIS = 5000;
+    private static final int THEME = android.support.v7.appcompat.R.style.Theme_AppCompat_Light_NoActionBar;
+    private static final Uri ICON_URI = Uri.parse("file:///data/local/tmp/icon.png");
+
+    private Activity mActivity;
+    private ToolbarSpec mSpec;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mActivity.setTheme(THEME);
+        mSpec = newBuilder(mActivity)
+                .setTitleText(TextViewOptions.Builder()
+                        .setText("Title")
+                        .setPrecomputeText(true)
+                        .build())
+                .addRightMenuText(TextViewOptions.Builder()
+                        .setText("right")
+                        .build())
+                .addRightMenuImage(ImageViewOptions.Builder()
+                        .setDrawableResId(android.R.drawable.ic_menu_search)
+                        .setUri(ICON_URI)
+                        .build())
+                .buildSpec();
+    }
+
+    @After
+    public void tearDown() {
+        ToolbarPreloader.getInstance().clear();
+    }
+
+    @Test
+    public void withoutMainThreadOptions_stripsUriAndPrecompute() {
+        ToolbarSpec stripped = mSpec.withoutMainThreadOptions();
+        assertFalse(stripped.titleTextOps.precomputeText);
+        assertNull(((ImageViewOptions) stripped.rightMenuItems.get(1).ops).uri);
+        assertSame(mSpec.rightMenuItems.get(0), stripped.rightMenuItems.get(0));
+        // The origin spec is immutable.
+        assertTrue(mSpec.titleTextOps.precomputeText);
+        assertSame(ICON_URI, ((ImageViewOptions) mSpec.rightMenuItems.get(1).ops).uri);
+    }
+
+    @Test
+    public void withoutMainThreadOptions_returnsSelfIfNothingToStrip() {
+        ToolbarSpec spec = newBuilder(mActivity)
+                .setTitleText("Title")
+                .buildSpec();
+        assertSame(spec, spec.withoutMainThreadOptions());
+    }
+
+    @Test
+    public void obtain_rebasesItemViewsAndAppliesStrippedOptions() throws InterruptedException {
+        ToolbarPreloader.getInstance().preload(mActivity, THEME, mSpec);
+        SToolbar toolbar = awaitPreloaded();
+        assertBaseContext(toolbar.getContext());
+        for (int i = 0; i < toolbar.getChildCount(); i++) {
+            assertBaseContext(toolbar.getChildAt(i).getContext());
+        }
+        // The uri icon is requested on main thread after obtained.
+        assertNotNull(toolbar.getRightMenuView(1).getTag(R.id.lib_toolbar_tag_icon_request));
+    }
+
+    private SToolbar awaitPreloaded() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + PRELOAD_TIMEOUT_MILLIS;
+        SToolbar toolbar = ToolbarPreloader.getInstance().obtain(mActivity, mSpec);
+        while (null == toolbar && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            toolbar = ToolbarPreloader.getInstance().obtain(mActivity, mSpec);
+        }
+        assertNotNull(toolbar);
+        return toolbar;
+    }
+
+    private void assertBaseContext(Context context) {
+        assertTrue(context instanceof MutableContextWrapper);
+        assertSame(mActivity, ((MutableContextWrapper) context).getBaseContext());
+    }
+
+}
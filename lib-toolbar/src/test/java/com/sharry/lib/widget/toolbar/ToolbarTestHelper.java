@@ -0,0 +1,83 @@
+package com.sharry.lib.widget.toolbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.robolectric.Robolectric;
+
+/**
+ * The shared fixtures of toolbar tests.
+ *
+ * @author agent
+ * @version 1.0
+ * @since 2026/10/17 10:20
+ */
+final class ToolbarTestHelper {
+
+    static final int TOOLBAR_WIDTH = 1080;
+
+    private ToolbarTestHelper() {
+    }
+
+    /**
+     * Get an app compat themed context backed by an activity, the status bar style needs the window.
+     */
+    static Context newContext() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        return new ContextThemeWrapper(activity, android.support.v7.appcompat.R.style.Theme_AppCompat_Light_NoActionBar);
+    }
+
+    /**
+     * Get the builder which only builds the toolbar, it is never attached.
+     */
+    static Builder newBuilder(Context context) {
+        return SToolbar.Builder(new FrameLayout(context));
+    }
+
+    /**
+     * Perform a measure and layout pass as the toolbar placed at the top of a vertical container.
+     */
+    static void measureAndLayout(View view, int width) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    /**
+     * The view counts its measure and layout passes, it is a fixed size view such as the custom title.
+     */
+    static class CountingView extends View {
+
+        private final int mWidth;
+        private final int mHeight;
+        int measureCount;
+        int layoutCount;
+
+        CountingView(Context context, int width, int height) {
+            super(context);
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            setMeasuredDimension(resolveSize(mWidth, widthMeasureSpec), resolveSize(mHeight, heightMeasureSpec));
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layoutCount++;
+        }
+
+        void resetCounts() {
+            measureCount = 0;
+            layoutCount = 0;
+        }
+
+    }
+
+}